@@ -0,0 +1,89 @@
+package org.santavm.tms.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+
+// Sends explicit evictions to the other nodes, evictions received from them are applied through evictLocally/clearLocally
+@RequiredArgsConstructor
+public class BroadcastingCache implements Cache {
+    private final Cache delegate;
+    private final CacheInvalidationBus bus;
+
+    @Override
+    @NonNull
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(@NonNull Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        delegate.evict(key);
+        bus.publishEvict(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(@NonNull Object key) {
+        // other nodes may hold the key even if this one does not
+        bus.publishEvict(getName(), key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        bus.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        bus.publishClear(getName());
+        return delegate.invalidate();
+    }
+
+    public void evictLocally(Object key) {
+        delegate.evict(key);
+    }
+
+    public void clearLocally() {
+        delegate.clear();
+    }
+}
@@ -0,0 +1,85 @@
+package org.santavm.tms.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Remembers which cached entries were built from which tasks, users and comments,
+ * so a write evicts only the entries that really embed the changed entity.
+ */
+@Component
+public class CacheDependencyIndex implements CacheEvictionListener {
+
+    // "task:1" -> cached entries built from task 1
+    private final Map<String, Set<CacheKey>> dependents = new HashMap<>();
+    // cached entry -> its dependencies, to unregister the entry when it leaves the cache
+    private final Map<CacheKey, Set<String>> dependencies = new HashMap<>();
+
+    public static String task(Long id) {
+        return "task:" + id;
+    }
+
+    public static String user(Long id) {
+        return "user:" + id;
+    }
+
+    public static String comment(Long id) {
+        return "comment:" + id;
+    }
+
+    public synchronized void register(String cacheName, Object key, Collection<String> entryDependencies) {
+        CacheKey cacheKey = new CacheKey(cacheName, key);
+        forget(cacheKey);
+        Set<String> registered = new HashSet<>(entryDependencies);
+        dependencies.put(cacheKey, registered);
+        for (String dependency : registered) {
+            dependents.computeIfAbsent(dependency, d -> new HashSet<>()).add(cacheKey);
+        }
+    }
+
+    public synchronized Set<CacheKey> dependentsOf(String dependency) {
+        Set<CacheKey> keys = dependents.get(dependency);
+        return keys == null ? Set.of() : Set.copyOf(keys);
+    }
+
+    public synchronized void forget(String cacheName, Object key) {
+        forget(new CacheKey(cacheName, key));
+    }
+
+    public synchronized void forgetAll(String cacheName) {
+        List<CacheKey> keys = dependencies.keySet().stream()
+                .filter(cacheKey -> cacheKey.cacheName().equals(cacheName))
+                .toList();
+        keys.forEach(this::forget);
+    }
+
+    @Override
+    public void evicted(String cacheName, Object key) {
+        forget(cacheName, key);
+    }
+
+    @Override
+    public void cleared(String cacheName) {
+        forgetAll(cacheName);
+    }
+
+    public synchronized int size() {
+        return dependencies.size();
+    }
+
+    private void forget(CacheKey cacheKey) {
+        Set<String> registered = dependencies.remove(cacheKey);
+        if (registered == null) return;
+        for (String dependency : registered) {
+            Set<CacheKey> keys = dependents.get(dependency);
+            if (keys != null) {
+                keys.remove(cacheKey);
+                if (keys.isEmpty()) dependents.remove(dependency);
+            }
+        }
+    }
+
+    public record CacheKey(String cacheName, Object key) {
+    }
+}
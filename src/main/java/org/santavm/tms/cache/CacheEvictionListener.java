@@ -0,0 +1,9 @@
+package org.santavm.tms.cache;
+
+// Told about explicit evictions of a Spring cache, local and received from other nodes
+public interface CacheEvictionListener {
+
+    void evicted(String cacheName, Object key);
+
+    void cleared(String cacheName);
+}
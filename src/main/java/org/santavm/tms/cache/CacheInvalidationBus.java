@@ -0,0 +1,304 @@
+package org.santavm.tms.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts local cache evictions to other TMS instances.
+ * Evictions are queued, deduplicated and sent in batches every flush interval. A message looks like
+ * <pre>
+ * tms1 &lt;node id&gt; &lt;queued at millis&gt;
+ * E	tasks	L:1        evict key 1 of "tasks"
+ * C	users              clear "users"
+ * D	user:2             evict whatever depends on user 2, resolved by every node against its own index
+ * A                       clear all caches
+ * </pre>
+ * A dependency with a prefix registered through onDependents goes to that listener instead of the caches,
+ * e.g. "D	token_version:2:5" for state kept outside the caches. Without a transport the bus only counts
+ * what it would have sent.
+ */
+@Slf4j
+public class CacheInvalidationBus implements DisposableBean {
+    private static final String VERSION = "tms1";
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final InvalidationTransport transport;
+    private final int maxPending;
+
+    private final Object lock = new Object();
+    private Set<Invalidation> pending = new LinkedHashSet<>();
+    private long oldestQueuedAt;
+
+    private volatile Receiver receiver;
+    // dependency prefix -> listener, gets the rest of the dependency, null when everything may have changed
+    private final Map<String, Consumer<String>> dependencyListeners = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder publishedMessages = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder appliedInvalidations = new LongAdder();
+    private final LongAdder lagTotalMillis = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    public CacheInvalidationBus(InvalidationTransport transport, int maxPending) {
+        this.transport = transport;
+        this.maxPending = maxPending;
+    }
+
+    // what the node does with invalidations received from other nodes
+    public interface Receiver {
+        void evictLocally(String cacheName, Object key);
+
+        void clearLocally(String cacheName);
+
+        void evictDependentsLocally(String dependency);
+
+        void clearAllLocally();
+    }
+
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void start(Receiver receiver, Duration flushInterval) {
+        this.receiver = receiver;
+        if (transport == null) return;
+        // nothing is known about the invalidations missed while reconnecting
+        transport.start(this::receive, this::clearAllLocally);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-bus-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Cache invalidation bus started, node {}, transport {}", nodeId, transport.name());
+    }
+
+    public void onDependents(String prefix, Consumer<String> listener) {
+        dependencyListeners.put(prefix, listener);
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        String encodedKey = encodeKey(key);
+        // a key of unknown type cannot be addressed on other nodes
+        enqueue(encodedKey == null
+                ? new Invalidation('C', cacheName, null)
+                : new Invalidation('E', cacheName, encodedKey));
+    }
+
+    public void publishClear(String cacheName) {
+        enqueue(new Invalidation('C', cacheName, null));
+    }
+
+    public void publishDependents(String dependency) {
+        enqueue(new Invalidation('D', dependency, null));
+    }
+
+    private void enqueue(Invalidation invalidation) {
+        if (transport == null) return;
+        queued.increment();
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                oldestQueuedAt = System.currentTimeMillis();
+            }
+            if (isCovered(invalidation) || !pending.add(invalidation)) {
+                deduplicated.increment();
+                return;
+            }
+            if (invalidation.kind() == 'C') {
+                // the clear supersedes queued keys of the same cache
+                pending.removeIf(p -> p.kind() == 'E' && p.target().equals(invalidation.target()));
+            }
+            if (pending.size() > maxPending) {
+                pending = new LinkedHashSet<>(List.of(Invalidation.CLEAR_ALL));
+            }
+        }
+    }
+
+    private boolean isCovered(Invalidation invalidation) {
+        return pending.contains(Invalidation.CLEAR_ALL)
+                || (invalidation.kind() == 'E' && pending.contains(new Invalidation('C', invalidation.target(), null)));
+    }
+
+    public void flush() {
+        Set<Invalidation> batch;
+        long queuedAt;
+        synchronized (lock) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            queuedAt = oldestQueuedAt;
+            pending = new LinkedHashSet<>();
+        }
+        try {
+            for (String message : encode(batch, queuedAt)) {
+                transport.publish(message);
+                publishedMessages.increment();
+            }
+        } catch (Exception e) {
+            publishFailures.increment();
+            log.warn("Cache invalidations were not published, retrying with the next flush: " + e.getMessage());
+            synchronized (lock) {
+                batch.addAll(pending);
+                pending = batch;
+                oldestQueuedAt = Math.min(oldestQueuedAt, queuedAt);
+                if (pending.size() > maxPending) {
+                    pending = new LinkedHashSet<>(List.of(Invalidation.CLEAR_ALL));
+                }
+            }
+        }
+    }
+
+    private List<String> encode(Set<Invalidation> batch, long queuedAt) {
+        String header = VERSION + " " + nodeId + " " + queuedAt + "\n";
+        int headerBytes = header.getBytes(StandardCharsets.UTF_8).length;
+        List<String> messages = new ArrayList<>();
+        StringBuilder message = new StringBuilder(header);
+        int messageBytes = headerBytes;
+        for (Invalidation invalidation : batch) {
+            String line = invalidation.encode() + "\n";
+            int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+            if (messageBytes + lineBytes > transport.maxMessageBytes() && messageBytes > headerBytes) {
+                messages.add(message.toString());
+                message = new StringBuilder(header);
+                messageBytes = headerBytes;
+            }
+            message.append(line);
+            messageBytes += lineBytes;
+        }
+        messages.add(message.toString());
+        return messages;
+    }
+
+    void receive(String message) {
+        String[] lines = message.split("\n");
+        String[] header = lines[0].split(" ");
+        if (header.length != 3 || !VERSION.equals(header[0])) {
+            log.warn("Unknown cache invalidation message, clearing all caches: " + lines[0]);
+            clearAllLocally();
+            return;
+        }
+        if (nodeId.equals(header[1])) return;  // already applied locally
+        receivedMessages.increment();
+        for (int i = 1; i < lines.length; i++) {
+            apply(lines[i]);
+        }
+        long lag = Math.max(0, System.currentTimeMillis() - Long.parseLong(header[2]));
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+        lagTotalMillis.add(lag);
+    }
+
+    private void apply(String line) {
+        String[] parts = line.split("\t", 3);
+        try {
+            switch (parts[0]) {
+                case "E" -> receiver.evictLocally(parts[1], decodeKey(parts[2]));
+                case "C" -> receiver.clearLocally(parts[1]);
+                case "D" -> evictDependentsLocally(parts[1]);
+                case "A" -> clearAllLocally();
+                default -> throw new IllegalArgumentException("unknown kind " + parts[0]);
+            }
+            appliedInvalidations.increment();
+        } catch (RuntimeException e) {
+            log.warn("Malformed cache invalidation \"" + line + "\", clearing all caches: " + e.getMessage());
+            clearAllLocally();
+        }
+    }
+
+    private void evictDependentsLocally(String dependency) {
+        for (Map.Entry<String, Consumer<String>> listener : dependencyListeners.entrySet()) {
+            if (dependency.startsWith(listener.getKey())) {
+                listener.getValue().accept(dependency.substring(listener.getKey().length()));
+                return;
+            }
+        }
+        receiver.evictDependentsLocally(dependency);
+    }
+
+    private void clearAllLocally() {
+        receiver.clearAllLocally();
+        dependencyListeners.values().forEach(listener -> listener.accept(null));
+    }
+
+    // keys keep their type, otherwise Long 1 evicted remotely would not match the cached entry
+    static String encodeKey(Object key) {
+        if (key instanceof Long l) return "L:" + l;
+        if (key instanceof Integer i) return "I:" + i;
+        if (key instanceof String s && s.indexOf('\n') < 0 && s.indexOf('\t') < 0) return "S:" + s;
+        return null;
+    }
+
+    static Object decodeKey(String encoded) {
+        String value = encoded.substring(2);
+        return switch (encoded.substring(0, 2)) {
+            case "L:" -> Long.valueOf(value);
+            case "I:" -> Integer.valueOf(value);
+            case "S:" -> value;
+            default -> throw new IllegalArgumentException("unknown key type " + encoded);
+        };
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("transport", transport == null ? "none" : transport.name());
+        synchronized (lock) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("queued", queued.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("publishedMessages", publishedMessages.sum());
+        stats.put("publishFailures", publishFailures.sum());
+        stats.put("receivedMessages", receivedMessages.sum());
+        stats.put("appliedInvalidations", appliedInvalidations.sum());
+        // from the first eviction queued on the sender to the apply here, includes clock skew between nodes
+        long received = receivedMessages.sum();
+        stats.put("lastLagMillis", lastLagMillis.get());
+        stats.put("maxLagMillis", maxLagMillis.get());
+        stats.put("avgLagMillis", received == 0 ? 0 : lagTotalMillis.sum() / received);
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private record Invalidation(char kind, String target, String key) {
+        static final Invalidation CLEAR_ALL = new Invalidation('A', "", null);
+
+        String encode() {
+            return switch (kind) {
+                case 'E' -> "E\t" + target + "\t" + key;
+                case 'A' -> "A";
+                default -> kind + "\t" + target;
+            };
+        }
+    }
+}
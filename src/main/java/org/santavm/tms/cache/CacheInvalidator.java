@@ -0,0 +1,84 @@
+package org.santavm.tms.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.config.CacheProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Key level evictions for the write paths, driven by CacheDependencyIndex and mirrored on other nodes
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidator implements CacheInvalidationBus.Receiver {
+    private final CacheManager cacheManager;
+    private final CacheDependencyIndex index;
+    private final CacheInvalidationBus bus;
+    private final CacheProperties properties;
+    private final DeferredEvictions deferredEvictions;
+
+    @PostConstruct
+    public void subscribe() {
+        bus.start(this, properties.getBus().getFlushInterval());
+    }
+
+    public void evict(String cacheName, Object key) {
+        if (key == null) return;
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    // evicts every cached entry built from the given entity, e.g. CacheDependencyIndex.user(id)
+    public void evictDependents(String dependency) {
+        deferredEvictions.run(List.of("dependents", dependency), () -> {
+            // other nodes resolve the dependency against their own index
+            bus.publishDependents(dependency);
+            evictDependentsLocally(dependency);
+        });
+    }
+
+    @Override
+    public void evictDependentsLocally(String dependency) {
+        for (CacheDependencyIndex.CacheKey cacheKey : index.dependentsOf(dependency)) {
+            log.trace("Evicting {} from {}, depends on {}", cacheKey.key(), cacheKey.cacheName(), dependency);
+            evictLocally(cacheKey.cacheName(), cacheKey.key());
+        }
+    }
+
+    @Override
+    public void evictLocally(String cacheName, Object key) {
+        Cache cache = this.undeferred(cacheName);
+        if (cache instanceof BroadcastingCache broadcastingCache) {
+            broadcastingCache.evictLocally(key);
+        } else if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    @Override
+    public void clearLocally(String cacheName) {
+        Cache cache = this.undeferred(cacheName);
+        if (cache instanceof BroadcastingCache broadcastingCache) {
+            broadcastingCache.clearLocally();
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    // received evictions were committed on the other node, they are applied right away
+    private Cache undeferred(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache instanceof AfterCommitCache afterCommitCache ? afterCommitCache.getDelegate() : cache;
+    }
+
+    @Override
+    public void clearAllLocally() {
+        cacheManager.getCacheNames().forEach(this::clearLocally);
+    }
+}
@@ -0,0 +1,64 @@
+package org.santavm.tms.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Per cache size, estimated memory and Caffeine statistics for the admin endpoint
+@Component
+@RequiredArgsConstructor
+public class CacheReporter {
+    private final CacheManager cacheManager;
+
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof Cache<?, ?> nativeCache) {
+                report.put(name, describe(nativeCache));
+            }
+        }
+        return report;
+    }
+
+    private Map<String, Object> describe(Cache<?, ?> cache) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("size", cache.estimatedSize());
+        // walks over all entries, fine for an admin request
+        long bytes = 0;
+        for (Map.Entry<?, ?> entry : cache.asMap().entrySet()) {
+            bytes += CacheSizeEstimator.estimate(entry.getKey()) + CacheSizeEstimator.estimate(entry.getValue());
+        }
+        description.put("estimatedBytes", bytes);
+        cache.policy().eviction().ifPresent(eviction -> {
+            if (eviction.isWeighted()) {
+                description.put("maximumWeight", eviction.getMaximum());
+            } else {
+                description.put("maximumSize", eviction.getMaximum());
+            }
+        });
+        cache.policy().expireAfterWrite().ifPresent(expiration ->
+                description.put("expireAfterWriteSeconds", expiration.getExpiresAfter().toSeconds()));
+        cache.policy().expireAfterAccess().ifPresent(expiration ->
+                description.put("expireAfterAccessSeconds", expiration.getExpiresAfter().toSeconds()));
+        cache.policy().refreshAfterWrite().ifPresent(refresh ->
+                description.put("refreshAfterWriteSeconds", refresh.getRefreshesAfter().toSeconds()));
+
+        CacheStats stats = cache.stats();
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        description.put("evictionWeight", stats.evictionWeight());
+        description.put("loads", stats.loadCount());
+        description.put("loadFailures", stats.loadFailureCount());
+        description.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return description;
+    }
+}
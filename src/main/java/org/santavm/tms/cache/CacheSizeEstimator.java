@@ -0,0 +1,92 @@
+package org.santavm.tms.cache;
+
+import org.hibernate.Hibernate;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rough estimate of the heap retained by a cached value (64-bit JVM, compressed oops).
+ * Not initialized Hibernate proxies and collections are counted as references only, so estimating never hits DB.
+ */
+public final class CacheSizeEstimator {
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_DEPTH = 8;
+
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private CacheSizeEstimator() {
+    }
+
+    public static long estimate(Object value) {
+        return estimate(value, Collections.newSetFromMap(new IdentityHashMap<>()), 0);
+    }
+
+    private static long estimate(Object value, Set<Object> visited, int depth) {
+        if (value == null) return 0;
+        if (value instanceof String string) return OBJECT_HEADER + 8 + OBJECT_HEADER + string.length();
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) return OBJECT_HEADER + 8;
+        if (value instanceof Enum<?>) return 0;  // shared constants
+        if (value instanceof Date) return OBJECT_HEADER + 16;
+        if (depth > MAX_DEPTH || !visited.add(value)) return REFERENCE;
+        if (!Hibernate.isInitialized(value)) return OBJECT_HEADER + REFERENCE;
+
+        if (value instanceof Optional<?> optional) {
+            return OBJECT_HEADER + REFERENCE + estimate(optional.orElse(null), visited, depth + 1);
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = OBJECT_HEADER + 16 + (long) collection.size() * REFERENCE;
+            for (Object element : collection) size += estimate(element, visited, depth + 1);
+            return size;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = OBJECT_HEADER + 32 + (long) map.size() * (OBJECT_HEADER + 3 * REFERENCE);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimate(entry.getKey(), visited, depth + 1) + estimate(entry.getValue(), visited, depth + 1);
+            }
+            return size;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                return OBJECT_HEADER + (long) length * 8;
+            }
+            long size = OBJECT_HEADER + (long) length * REFERENCE;
+            for (int i = 0; i < length; i++) size += estimate(Array.get(value, i), visited, depth + 1);
+            return size;
+        }
+
+        long size = OBJECT_HEADER;
+        for (Field field : fields(value.getClass())) {
+            if (field.getType().isPrimitive()) {
+                size += 8;
+                continue;
+            }
+            size += REFERENCE;
+            try {
+                size += estimate(field.get(value), visited, depth + 1);
+            } catch (IllegalAccessException e) {
+                // counted as reference only
+            }
+        }
+        return size;
+    }
+
+    private static List<Field> fields(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, key -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = key; current != null && current != Object.class; current = current.getSuperclass()) {
+                if (!current.getName().startsWith("org.santavm.tms")) continue;  // JDK and library internals are not inspected
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) continue;
+                    if (field.trySetAccessible()) fields.add(field);
+                }
+            }
+            return fields;
+        });
+    }
+}
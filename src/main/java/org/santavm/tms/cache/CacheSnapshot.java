@@ -0,0 +1,91 @@
+package org.santavm.tms.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Keys of the hottest "tasks" and "user_resp" entries, written at shutdown and replayed by the warmup.
+ * Only keys are kept: values are loaded again, so a snapshot never brings back stale data.
+ * File format: one "cache name TAB id" per line.
+ */
+@Component
+@Slf4j
+public class CacheSnapshot {
+    public static final List<String> CACHES = List.of("tasks", "user_resp");
+
+    private final CacheManager cacheManager;
+    private final String file;
+    private final int maxKeys;
+
+    public CacheSnapshot(CacheManager cacheManager,
+                         @Value("${app.warmup.snapshot.file:}") String file,
+                         @Value("${app.warmup.snapshot.max-keys:1000}") int maxKeys) {
+        this.cacheManager = cacheManager;
+        this.file = file;
+        this.maxKeys = maxKeys;
+    }
+
+    public boolean isEnabled() {
+        return !file.isBlank() && maxKeys > 0;
+    }
+
+    @PreDestroy
+    public void write() {
+        if (!isEnabled()) return;
+        List<String> lines = new ArrayList<>();
+        for (String name : CACHES) {
+            hottestKeys(name).forEach(key -> lines.add(name + "\t" + key));
+        }
+        Path path = Path.of(file);
+        try {
+            Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), "tms-snapshot", ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Cache snapshot with {} key(s) written to {}", lines.size(), path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cache snapshot was not written: " + e.getMessage());
+        }
+    }
+
+    // cache name -> ids, hottest first
+    public Map<String, List<Long>> read() {
+        Map<String, List<Long>> keys = new LinkedHashMap<>();
+        if (!isEnabled() || !Files.isReadable(Path.of(file))) return keys;
+        try {
+            for (String line : Files.readAllLines(Path.of(file), StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t");
+                if (parts.length != 2 || !CACHES.contains(parts[0])) continue;
+                keys.computeIfAbsent(parts[0], name -> new ArrayList<>()).add(Long.valueOf(parts[1]));
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Cache snapshot {} was not read: {}", file, e.getMessage());
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> hottestKeys(String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?> nativeCache)) return List.of();
+        Cache<Object, Object> caffeine = (Cache<Object, Object>) nativeCache;
+        Collection<Object> keys = caffeine.policy().eviction()
+                .map(eviction -> (Collection<Object>) eviction.hottest(maxKeys).keySet())
+                .orElseGet(() -> caffeine.asMap().keySet());
+        return keys.stream()
+                .filter(Long.class::isInstance)
+                .map(Long.class::cast)
+                .limit(maxKeys)
+                .toList();
+    }
+}
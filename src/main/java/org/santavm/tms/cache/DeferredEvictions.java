@@ -0,0 +1,135 @@
+package org.santavm.tms.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.config.CacheProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evictions made inside a transaction are collected and applied after it completes.
+ * An eviction applied before the commit lets a concurrent reader put the old row back into the cache,
+ * where it would stay until expiry. Duplicates are dropped, e.g. the same key evicted by an annotation
+ * and by the dependency index. With doubleDeleteDelay the batch is applied once more a bit later,
+ * it covers readers that loaded the old row before the commit and put it after the first eviction.
+ */
+@Component
+@Slf4j
+public class DeferredEvictions implements DisposableBean {
+    private final boolean enabled;
+    private final Duration doubleDeleteDelay;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder immediate = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder doubleDeletes = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public DeferredEvictions(CacheProperties properties) {
+        this.enabled = properties.isEvictAfterCommit();
+        Duration delay = properties.getDoubleDeleteDelay();
+        this.doubleDeleteDelay = delay == null || delay.isZero() || delay.isNegative() ? null : delay;
+        this.scheduler = doubleDeleteDelay == null ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-double-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // key identifies the eviction, e.g. cache name and cache key, a second one with the same key is dropped
+    public void run(Object key, Runnable eviction) {
+        if (enabled && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+            if (batch == null) {
+                batch = new Batch();
+                TransactionSynchronizationManager.bindResource(this, batch);
+                TransactionSynchronizationManager.registerSynchronization(batch);
+            }
+            if (batch.evictions.putIfAbsent(key, eviction) == null) {
+                deferred.increment();
+            } else {
+                deduplicated.increment();
+            }
+            return;
+        }
+        immediate.increment();
+        this.apply(List.of(eviction));
+        this.scheduleDoubleDelete(List.of(eviction));
+    }
+
+    private void apply(Collection<Runnable> evictions) {
+        for (Runnable eviction : evictions) {
+            try {
+                eviction.run();
+            } catch (RuntimeException e) {
+                // the rest of the batch still has to be applied
+                failed.increment();
+                log.warn("Cache eviction failed", e);
+            }
+        }
+    }
+
+    private void scheduleDoubleDelete(Collection<Runnable> evictions) {
+        if (scheduler == null || scheduler.isShutdown()) return;
+        scheduler.schedule(() -> {
+            this.apply(evictions);
+            // counted once applied, batches + immediate - doubleDeletes are still to come
+            doubleDeletes.increment();
+        }, doubleDeleteDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("evictAfterCommit", enabled);
+        stats.put("doubleDeleteDelayMillis", doubleDeleteDelay == null ? 0 : doubleDeleteDelay.toMillis());
+        stats.put("deferred", deferred.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("immediate", immediate.sum());
+        stats.put("batches", batches.sum());
+        stats.put("doubleDeletes", doubleDeletes.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private class Batch implements TransactionSynchronization {
+        private final Map<Object, Runnable> evictions = new LinkedHashMap<>();
+
+        @Override
+        public void suspend() {
+            // evictions of an inner REQUIRES_NEW transaction go to a batch of their own
+            TransactionSynchronizationManager.unbindResource(DeferredEvictions.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DeferredEvictions.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DeferredEvictions.this);
+            // after a rollback too: the transaction itself may have cached what it wrote
+            batches.increment();
+            List<Runnable> batch = List.copyOf(evictions.values());
+            apply(batch);
+            scheduleDoubleDelete(batch);
+        }
+    }
+}
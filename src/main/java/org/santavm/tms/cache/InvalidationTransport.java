@@ -0,0 +1,23 @@
+package org.santavm.tms.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries batches of cache invalidations between TMS instances.
+ * Messages are plain text, a transport may deliver them to the sending node as well.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+    String name();
+
+    // longest message the transport accepts, in UTF-8 bytes
+    int maxMessageBytes();
+
+    // receiver gets every message, onResubscribe is called when messages may have been lost
+    void start(Consumer<String> receiver, Runnable onResubscribe);
+
+    void publish(String message) throws Exception;
+
+    @Override
+    void close();
+}
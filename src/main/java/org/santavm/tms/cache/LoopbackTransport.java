@@ -0,0 +1,35 @@
+package org.santavm.tms.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-JVM transport: every bus started on the same instance receives every message, used by tests
+public class LoopbackTransport implements InvalidationTransport {
+    private final List<Consumer<String>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String name() {
+        return "loopback";
+    }
+
+    @Override
+    public int maxMessageBytes() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void start(Consumer<String> receiver, Runnable onResubscribe) {
+        receivers.add(receiver);
+    }
+
+    @Override
+    public void publish(String message) {
+        receivers.forEach(receiver -> receiver.accept(message));
+    }
+
+    @Override
+    public void close() {
+        receivers.clear();
+    }
+}
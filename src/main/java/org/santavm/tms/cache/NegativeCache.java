@@ -0,0 +1,49 @@
+package org.santavm.tms.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers ids and emails that were just looked up and not found, so polling for them does not reach the database.
+ * Entries live in the short-lived "missing" cache and are evicted when the id or email is created.
+ */
+@Component
+@RequiredArgsConstructor
+public class NegativeCache {
+    public static final String CACHE = "missing";
+
+    private final CacheManager cacheManager;
+
+    public static String task(Long id) {
+        return "task:" + id;
+    }
+
+    public static String user(Long id) {
+        return "user:" + id;
+    }
+
+    public static String email(String email) {
+        return "email:" + email;
+    }
+
+    public boolean isMissing(String key) {
+        Cache cache = cacheManager.getCache(CACHE);
+        return cache != null && cache.get(key) != null;
+    }
+
+    public void markMissing(String key) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache != null) {
+            cache.put(key, Boolean.TRUE);
+        }
+    }
+
+    public void forget(String key) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
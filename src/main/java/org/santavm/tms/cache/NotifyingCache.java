@@ -0,0 +1,84 @@
+package org.santavm.tms.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// Tells listeners about explicit evictions, including the ones made by @CacheEvict,
+// e.g. keeps CacheDependencyIndex in sync with the cache
+@RequiredArgsConstructor
+public class NotifyingCache implements Cache {
+    private final Cache delegate;
+    private final List<CacheEvictionListener> listeners;
+
+    @Override
+    @NonNull
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(@NonNull Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        delegate.evict(key);
+        listeners.forEach(listener -> listener.evicted(getName(), key));
+    }
+
+    @Override
+    public boolean evictIfPresent(@NonNull Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        listeners.forEach(listener -> listener.evicted(getName(), key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        listeners.forEach(listener -> listener.cleared(getName()));
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        listeners.forEach(listener -> listener.cleared(getName()));
+        return invalidated;
+    }
+}
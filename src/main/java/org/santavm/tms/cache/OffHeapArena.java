@@ -0,0 +1,179 @@
+package org.santavm.tms.cache;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Byte arrays stored in one direct buffer, outside of the Java heap.
+ * The buffer is written as a ring log: a new value goes right after the previous one
+ * and overwrites the oldest values, so eviction is FIFO and needs no free lists.
+ * Removed and expired values stay in the log as garbage until the ring passes over them.
+ */
+public class OffHeapArena {
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int maxValueBytes;
+    private final long ttlMillis;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Object, Slot> index = new HashMap<>();
+    // every written slot in write order, live or not
+    private final ArrayDeque<Slot> log = new ArrayDeque<>();
+    private int head;
+    private long liveBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public OffHeapArena(int capacity, long ttlMillis) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.capacity = capacity;
+        // a single value must not wipe out most of the arena
+        this.maxValueBytes = capacity / 8;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // a copy of the stored bytes, or null
+    public Stored get(Object key) {
+        lock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            if (slot != null && slot.expiresAt > System.currentTimeMillis()) {
+                byte[] bytes = new byte[slot.length];
+                buffer.get(slot.offset, bytes);
+                hits.increment();
+                return new Stored(bytes, slot.attribute);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // attribute is returned along with the bytes, e.g. their encoding
+    public boolean put(Object key, byte[] bytes, String attribute) {
+        if (bytes.length > maxValueBytes) {
+            rejected.increment();
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (head + bytes.length > capacity) {
+                // the tail of the ring is too short, everything still there is the oldest data
+                evictWhile(slot -> slot.offset >= head);
+                head = 0;
+            }
+            int end = head + bytes.length;
+            evictWhile(slot -> slot.offset < end && slot.offset + slot.length > head);
+
+            buffer.put(head, bytes);
+            Slot slot = new Slot(key, head, bytes.length, System.currentTimeMillis() + ttlMillis, attribute);
+            log.addLast(slot);
+            Slot replaced = index.put(key, slot);
+            if (replaced != null) {
+                replaced.live = false;
+                liveBytes -= replaced.length;
+            }
+            liveBytes += slot.length;
+            head = end;
+            writes.increment();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void evictWhile(Predicate<Slot> condition) {
+        while (!log.isEmpty() && condition.test(log.peekFirst())) {
+            Slot slot = log.pollFirst();
+            if (slot.live) {
+                index.remove(slot.key, slot);
+                liveBytes -= slot.length;
+                if (slot.expiresAt > System.currentTimeMillis()) {
+                    evictions.increment();
+                } else {
+                    expirations.increment();
+                }
+            }
+        }
+    }
+
+    public void remove(Object key) {
+        lock.writeLock().lock();
+        try {
+            Slot slot = index.remove(key);
+            if (slot != null) {
+                slot.live = false;
+                liveBytes -= slot.length;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeIf(Predicate<Object> keyCondition) {
+        lock.writeLock().lock();
+        try {
+            Iterator<Slot> iterator = index.values().iterator();
+            while (iterator.hasNext()) {
+                Slot slot = iterator.next();
+                if (keyCondition.test(slot.key)) {
+                    iterator.remove();
+                    slot.live = false;
+                    liveBytes -= slot.length;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("entries", index.size());
+            stats.put("liveBytes", liveBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("capacityBytes", capacity);
+        stats.put("maxValueBytes", maxValueBytes);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("writes", writes.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("rejectedTooLarge", rejected.sum());
+        return stats;
+    }
+
+    public record Stored(byte[] bytes, String attribute) {
+    }
+
+    private static final class Slot {
+        final Object key;
+        final int offset;
+        final int length;
+        final long expiresAt;
+        final String attribute;
+        boolean live = true;
+
+        Slot(Object key, int offset, int length, long expiresAt, String attribute) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+            this.attribute = attribute;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.santavm.tms.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.santavm.tms.model.Task;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pages of list queries cached under their query shape, Pageable and the generations of the dimensions they read.
+ * A write bumps the generations of the dimensions it touches (author, executor, status, ...), so pages built
+ * before it are never looked up again and age out of the cache, no key scanning is needed.
+ * A bump is an eviction of the generation entry, so it reaches other nodes over the invalidation bus.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCache {
+    public static final String GENERATIONS = "query_generations";
+    public static final String TASK_PAGES = "task_pages";
+    public static final String COMMENT_PAGES = "comment_pages";
+
+    // read by criteria queries without any filter
+    public static final String ALL_TASKS = "tasks";
+    // names of users are embedded into task and comment pages
+    public static final String USERS = "users";
+
+    private final CacheManager cacheManager;
+    // a generation evicted and read again gets a number no earlier page was built with
+    private final AtomicLong counter = new AtomicLong();
+
+    public static String author(Long id) {
+        return "author:" + id;
+    }
+
+    public static String executor(Long id) {
+        return "executor:" + id;
+    }
+
+    public static String status(Enum<?> status) {
+        return "status:" + status;
+    }
+
+    public static String priority(Enum<?> priority) {
+        return "priority:" + priority;
+    }
+
+    public static String commentsOfTask(Long taskId) {
+        return "comments:task:" + taskId;
+    }
+
+    // list pages the task is listed on
+    public static Set<String> listing(Task task) {
+        Set<String> dimensions = new HashSet<>();
+        dimensions.add(ALL_TASKS);
+        // the id columns are read only, they are not set on a new or reassigned task
+        dimensions.add(author(task.getAuthor().getId()));
+        if (task.getExecutor() != null) {
+            dimensions.add(executor(task.getExecutor().getId()));
+        }
+        dimensions.add(status(task.getStatus()));
+        dimensions.add(priority(task.getPriority()));
+        return dimensions;
+    }
+
+    public <T> List<T> page(String cacheName, String shape, Pageable pageable,
+                            Collection<String> dimensions, Supplier<List<T>> loader) {
+        Cache pages = cacheManager.getCache(cacheName);
+        Cache generations = cacheManager.getCache(GENERATIONS);
+        // pages could not be invalidated without generations
+        if (pages == null || generations == null) return loader.get();
+
+        StringBuilder key = new StringBuilder(shape).append('|');
+        if (pageable.isPaged()) {
+            key.append(pageable.getPageNumber()).append(',').append(pageable.getPageSize());
+        } else {
+            key.append("unpaged");
+        }
+        key.append('|').append(pageable.getSort());
+        for (String dimension : dimensions) {
+            key.append('|').append(dimension).append('@').append(generations.get(dimension, counter::incrementAndGet));
+        }
+        try {
+            return pages.get(key.toString(), loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            // e.g. NotFoundException of the loader
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    public void bump(Collection<String> dimensions) {
+        Cache generations = cacheManager.getCache(GENERATIONS);
+        if (generations == null) return;
+        dimensions.forEach(generations::evict);
+    }
+
+    public void bump(String... dimensions) {
+        this.bump(List.of(dimensions));
+    }
+}
@@ -0,0 +1,138 @@
+package org.santavm.tms.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bodies of cached responses, kept off-heap in OffHeapArena and written to the response as they are.
+ * It is a tier in front of the Spring cache with the same name: every eviction of that cache evicts the body too,
+ * explicit ones through NotifyingCache, size and expiry ones through the Caffeine listeners in CacheConfig.
+ */
+@Component
+@Slf4j
+public class ResponseBodyCache implements CacheEvictionListener {
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int gzipMinBytes;
+    private final OffHeapArena arena;
+
+    // cache name -> bumped on every eviction, a body rendered meanwhile may be stale and is not stored
+    private final Map<String, AtomicLong> evictions = new ConcurrentHashMap<>();
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             @Value("${app.response-cache.enabled:true}") boolean enabled,
+                             @Value("${app.response-cache.capacity:64MB}") DataSize capacity,
+                             @Value("${app.response-cache.ttl:10m}") Duration ttl,
+                             @Value("${app.response-cache.gzip-min-size:1KB}") DataSize gzipMinSize) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzipMinBytes = gzipMinSize.toBytes() <= 0 ? Integer.MAX_VALUE : (int) gzipMinSize.toBytes();
+        this.arena = enabled ? new OffHeapArena((int) capacity.toBytes(), ttl.toMillis()) : null;
+    }
+
+    /**
+     * 200 with the JSON of loader's result. The loader normally reads the Spring cache "cacheName" by the same key.
+     */
+    public ResponseEntity<?> respond(String cacheName, Object key, String acceptEncoding, Supplier<Object> loader) {
+        if (!enabled) {
+            return ResponseEntity.ok(loader.get());
+        }
+        BodyKey bodyKey = new BodyKey(cacheName, key);
+        OffHeapArena.Stored stored = arena.get(bodyKey);
+        if (stored == null) {
+            AtomicLong cacheEvictions = evictionsOf(cacheName);
+            long evictionsBefore = cacheEvictions.get();
+            byte[] json = toJson(loader.get());
+            boolean gzipped = json.length >= gzipMinBytes;
+            byte[] bytes = gzipped ? gzip(json) : json;
+            if (cacheEvictions.get() == evictionsBefore) {
+                arena.put(bodyKey, bytes, gzipped ? GZIP : null);
+            }
+            stored = new OffHeapArena.Stored(bytes, gzipped ? GZIP : null);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!GZIP.equals(stored.attribute())) {
+            return response.body(stored.bytes());
+        }
+        if (acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(stored.bytes());
+        }
+        return response.body(gunzip(stored.bytes()));
+    }
+
+    @Override
+    public void evicted(String cacheName, Object key) {
+        if (!enabled) return;
+        evictionsOf(cacheName).incrementAndGet();
+        arena.remove(new BodyKey(cacheName, key));
+    }
+
+    @Override
+    public void cleared(String cacheName) {
+        if (!enabled) return;
+        evictionsOf(cacheName).incrementAndGet();
+        arena.removeIf(key -> ((BodyKey) key).cacheName().equals(cacheName));
+    }
+
+    // evictions of other caches, e.g. size evictions of "missing", do not hold back bodies of this one
+    private AtomicLong evictionsOf(String cacheName) {
+        return evictions.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    public Map<String, Object> getStats() {
+        return enabled ? arena.getStats() : Map.of("enabled", false);
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response was not serialized", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record BodyKey(String cacheName, Object key) {
+    }
+}
@@ -1,32 +1,47 @@
 package org.santavm.tms.config;
 
 import lombok.RequiredArgsConstructor;
+import org.santavm.tms.cache.NegativeCache;
 import org.santavm.tms.repository.UserRepository;
 import org.santavm.tms.service.CustomUserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
 public class AuthConfig {
 
     private final UserRepository repository;
+    private final CacheManager cacheManager;
+    private final NegativeCache negativeCache;
+
+    @Value("${app.security.bcrypt-strength:10}")
+    private int bcryptStrength;
+    @Value("${app.security.hashing.threads:0}")  // 0 means number of CPUs
+    private int hashingThreads;
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+    @Value("${app.security.hashing.timeout:5s}")
+    private Duration hashingTimeout;
 
     @Bean
-    public UserDetailsService userDetailsService(){
-        return new CustomUserDetailsService(repository);
+    public CustomUserDetailsService userDetailsService(){
+        return new CustomUserDetailsService(repository, cacheManager, negativeCache);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(){
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                hashingThreads, hashingQueueCapacity, hashingTimeout);
     }
 
     @Bean
@@ -34,6 +49,8 @@ public class AuthConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService());
         provider.setPasswordEncoder(passwordEncoder());
+        // rehash on successful login when the stored hash is weaker than bcrypt-strength
+        provider.setUserDetailsPasswordService(userDetailsService());
         return provider;
     }
 
@@ -0,0 +1,134 @@
+package org.santavm.tms.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.cache.*;
+import org.santavm.tms.service.TaskService;
+import org.santavm.tms.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+@Slf4j
+public class CacheConfig {
+
+    // Caffeine: bounded caches with W-TinyLFU eviction and statistics per cache name
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties, CacheDependencyIndex dependencyIndex,
+                                     CacheInvalidationBus invalidationBus, ResponseBodyCache responseBodyCache,
+                                     DeferredEvictions deferredEvictions,
+                                     ExecutorService cacheRefreshExecutor, ObjectProvider<Ticker> cacheTicker,
+                                     ObjectProvider<TaskService> taskService, ObjectProvider<UserService> userService) {
+        // services are resolved on the first refresh, they depend on the cache manager themselves
+        Map<String, CacheLoader<Object, Object>> loaders = Map.of(
+                "tasks", key -> refresh(() -> taskService.getObject().loadOne((Long) key)),
+                "user_resp", key -> refresh(() -> userService.getObject().loadById((Long) key)));
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new AfterCommitCache(new BroadcastingCache(new NotifyingCache(super.adaptCaffeineCache(name, cache),
+                        List.of(dependencyIndex, responseBodyCache)), invalidationBus), deferredEvictions);
+            }
+        };
+        // the system clock unless a Ticker bean is given, tests move time by hand
+        Ticker ticker = cacheTicker.getIfAvailable(Ticker::systemTicker);
+        cacheManager.setCaffeine(builder(properties.getDefaultSpec()).ticker(ticker));
+        properties.getSpecs().forEach((name, spec) -> {
+            Caffeine<Object, Object> builder = builder(spec)
+                    .ticker(ticker)
+                    // size and expiry evictions do not pass through NotifyingCache, the body of an entry
+                    // no longer tracked by the dependency index could not be found by a later eviction
+                    .evictionListener((key, value, cause) -> {
+                        dependencyIndex.forget(name, key);
+                        responseBodyCache.evicted(name, key);
+                    })
+                    // a replaced value, e.g. reloaded by refresh-after-write, has to be rendered again
+                    .removalListener((key, value, cause) -> {
+                        if (cause == RemovalCause.REPLACED) responseBodyCache.evicted(name, key);
+                    });
+            if (spec.getRefreshAfterWrite() == null) {
+                cacheManager.registerCustomCache(name, builder.build());
+            } else if (loaders.containsKey(name)) {
+                // a failed reload keeps the old value, so it is served while the database is unavailable
+                cacheManager.registerCustomCache(name, builder
+                        .refreshAfterWrite(spec.getRefreshAfterWrite())
+                        .executor(cacheRefreshExecutor)
+                        .build(loaders.get(name)));
+            } else {
+                log.warn("Cache {} has no loader, refresh-after-write is ignored", name);
+                cacheManager.registerCustomCache(name, builder.build());
+            }
+        });
+        return cacheManager;
+    }
+
+    // the entity is gone: null drops the entry instead of logging a failed refresh
+    private static Object refresh(Supplier<Object> loader) {
+        try {
+            return loader.get();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService cacheRefreshExecutor(CacheProperties properties) {
+        return Executors.newFixedThreadPool(properties.getRefreshThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // evictions made on one node are sent to the others, see CacheInvalidator for the receiving side
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(CacheProperties properties, DataSource dataSource,
+                                                     @Value("${spring.datasource.url:}") String url,
+                                                     @Value("${spring.datasource.username:}") String username,
+                                                     @Value("${spring.datasource.password:}") String password) {
+        CacheProperties.Bus bus = properties.getBus();
+        InvalidationTransport transport = switch (bus.getTransport()) {
+            case NONE -> null;
+            case LOOPBACK -> new LoopbackTransport();
+            case POSTGRES -> new PostgresNotifyTransport(dataSource, url, username, password, bus.getChannel());
+        };
+        return new CacheInvalidationBus(transport, bus.getMaxPending());
+    }
+
+    private Caffeine<Object, Object> builder(CacheProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight().toBytes())
+                    .weigher((key, value) -> (int) Math.min(Integer.MAX_VALUE,
+                            CacheSizeEstimator.estimate(key) + CacheSizeEstimator.estimate(value)));
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,61 @@
+package org.santavm.tms.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    // used for caches without their own spec
+    private Spec defaultSpec = new Spec();
+
+    // cache name -> spec
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    private Bus bus = new Bus();
+
+    // threads reloading entries of caches with refreshAfterWrite
+    private int refreshThreads = 2;
+
+    // evictions made inside a transaction are applied once it completes, batched, see DeferredEvictions
+    private boolean evictAfterCommit = true;
+
+    // evictions are applied once more after this delay, a reader that loaded the old row
+    // before the commit may have put it back in the meantime; null disables
+    private Duration doubleDeleteDelay;
+
+    @Getter
+    @Setter
+    public static class Spec {
+        // either maximumSize (entries) or maximumWeight (estimated memory) bounds the cache
+        private Long maximumSize = 1000L;
+        private DataSize maximumWeight;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        // stale-while-revalidate: older entries are served while a reload runs in background,
+        // only for caches with a loader, see CacheConfig
+        private Duration refreshAfterWrite;
+    }
+
+    @Getter
+    @Setter
+    public static class Bus {
+        public enum Transport { NONE, LOOPBACK, POSTGRES }
+
+        private Transport transport = Transport.NONE;
+        // LISTEN/NOTIFY channel of the postgres transport
+        private String channel = "tms_cache_invalidation";
+        // evictions are batched for this long before they are sent
+        private Duration flushInterval = Duration.ofMillis(50);
+        // above it the queued evictions are replaced by a single "clear all caches"
+        private int maxPending = 10_000;
+    }
+}
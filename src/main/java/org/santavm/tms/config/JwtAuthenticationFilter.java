@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.santavm.tms.service.JwtService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
@@ -25,6 +26,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
 
+    // true: principal is built from the token claims, UserDetailsService is used only for tokens without them
+    @Value("${app.jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
+
     private final SecurityContextHolderStrategy securityContextHolderStrategy = SecurityContextHolder.getContextHolderStrategy();
 
     @Override
@@ -43,16 +48,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         // passing JwtExceptions to MyAuthenticationEntryPoint (we can rethrow here to see them in debug console)
+        UserDetails userDetails = null;
         String email = null;
         try {
-            email = jwtService.extractUserEmail(token);
+            if (statelessPrincipal) {
+                userDetails = jwtService.extractPrincipal(token);
+            }
+            if (userDetails == null) {
+                email = jwtService.extractUserEmail(token);
+            }
         } catch (Exception e) {
             request.setAttribute("jwt_exception", e.getMessage());
         }
 
-        if(email != null && SecurityContextHolder.getContext().getAuthentication() == null){
+        if((userDetails != null || email != null) && SecurityContextHolder.getContext().getAuthentication() == null){
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+            if (userDetails == null) {
+                userDetails = this.userDetailsService.loadUserByUsername(email);
+            }
 
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                     userDetails,
@@ -40,8 +40,9 @@ public class SecurityConfig {
                                     "/swagger-resources", "/swagger-resources/**",
                                     "/configuration/ui", "configuration/security",
                                     "/v3/api-docs", "/v3/api-docs/**",
-                                    "/webjars/**").permitAll()
-                            .requestMatchers("/users/*/delete").hasRole("ADMIN")
+                                    "/webjars/**",
+                                    "/actuator/health", "/actuator/health/**").permitAll()
+                            .requestMatchers("/users/*/delete", "/admin/**").hasRole("ADMIN")
                             .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
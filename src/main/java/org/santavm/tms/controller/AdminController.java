@@ -0,0 +1,119 @@
+package org.santavm.tms.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.santavm.tms.cache.CacheInvalidationBus;
+import org.santavm.tms.cache.CacheReporter;
+import org.santavm.tms.cache.DeferredEvictions;
+import org.santavm.tms.cache.ResponseBodyCache;
+import org.santavm.tms.config.BoundedPasswordEncoder;
+import org.santavm.tms.service.JwtService;
+import org.santavm.tms.service.LoginThrottle;
+import org.santavm.tms.service.SearchService;
+import org.santavm.tms.service.TokenRevocationService;
+import org.santavm.tms.util.WarmupRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "JWT Bearer")
+@PreAuthorize(value = "hasRole('ADMIN')")
+public class AdminController {
+    private final JwtService jwtService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final LoginThrottle loginThrottle;
+    private final TokenRevocationService revocationService;
+    private final CacheReporter cacheReporter;
+    private final ResponseBodyCache responseBodyCache;
+    private final DeferredEvictions deferredEvictions;
+    private final CacheInvalidationBus invalidationBus;
+    private final WarmupRunner warmupRunner;
+    private final SearchService searchService;
+
+    @Operation(
+            description = "Size and hit/miss counters of the verified JWT cache and of the revocation list",
+            summary = "JWT verification statistics"
+    )
+    @GetMapping("/stats/jwt")
+    public ResponseEntity<?> jwtCacheStats(){
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("verifiedCache", jwtService.getVerifiedCacheStats());
+        stats.put("revocations", revocationService.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @Operation(
+            description = "Hash latency and queue depth of the password hashing pool, login throttling counters",
+            summary = "Password hashing statistics"
+    )
+    @GetMapping("/stats/password-hashing")
+    public ResponseEntity<?> passwordHashingStats(){
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hashing", passwordEncoder.getStats());
+        stats.put("loginThrottle", loginThrottle.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @Operation(
+            description = "Size, estimated memory, limits and hit/miss/eviction/load statistics of every cache and of the off-heap response bodies, "
+                    + "evictions deferred to transaction completion",
+            summary = "Cache statistics"
+    )
+    @GetMapping("/caches")
+    public ResponseEntity<?> caches(){
+        Map<String, Object> report = new LinkedHashMap<>(cacheReporter.report());
+        report.put("responseBodies", responseBodyCache.getStats());
+        report.put("deferredEvictions", deferredEvictions.getStats());
+        return ResponseEntity.ok(report);
+    }
+
+    @Operation(
+            description = "Evictions sent to and received from other instances, invalidation lag of this instance",
+            summary = "Cache invalidation bus statistics"
+    )
+    @GetMapping("/stats/cache-bus")
+    public ResponseEntity<?> cacheBusStats(){
+        return ResponseEntity.ok(invalidationBus.getStats());
+    }
+
+    @Operation(
+            description = "State and duration of the startup warmup, connections opened and cache keys primed",
+            summary = "Warmup report"
+    )
+    @GetMapping("/stats/warmup")
+    public ResponseEntity<?> warmupReport(){
+        return ResponseEntity.ok(warmupRunner.getReport());
+    }
+
+    @Operation(
+            description = "Documents and terms of the search index, whether it holds everything yet, the last rebuild",
+            summary = "Search index statistics"
+    )
+    @GetMapping("/stats/search")
+    public ResponseEntity<?> searchStats(){
+        return ResponseEntity.ok(searchService.getStats());
+    }
+
+    @Operation(
+            description = "Reads every task and comment into a new search index, searches use the old one meanwhile",
+            summary = "Rebuild the search index"
+    )
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex(){
+        if (!searchService.rebuild()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Search index rebuild is already running or failed");
+        }
+        return ResponseEntity.ok(searchService.getStats());
+    }
+}
@@ -10,14 +10,18 @@ import lombok.RequiredArgsConstructor;
 import org.santavm.tms.dto.AuthResponse;
 import org.santavm.tms.dto.CommentReq;
 import org.santavm.tms.dto.CommentResp;
+import org.santavm.tms.dto.CursorPage;
 import org.santavm.tms.model.Comment;
 import org.santavm.tms.service.CommentService;
+import org.santavm.tms.service.ExportService;
 import org.santavm.tms.util.CustomPermissionException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -27,6 +31,7 @@ import java.util.List;
 @SecurityRequirement(name = "JWT Bearer")
 public class CommentController {
     private final CommentService service;
+    private final ExportService exportService;
 
     @Operation(
             description = "Add new Comment to TMS",
@@ -67,6 +72,22 @@ public class CommentController {
         return ResponseEntity.status(HttpStatus.OK).body(commentList);
     }
 
+    @GetMapping("/by-task/{taskId}/scroll")
+    public ResponseEntity<?> scrollByTaskId(@PathVariable Long taskId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "10") int size){
+        CursorPage<CommentResp> page = service.scrollByTaskId(taskId, cursor, size);
+        return ResponseEntity.status(HttpStatus.OK).body(page);
+    }
+
+    @GetMapping("/by-author/{authorId}/scroll")
+    public ResponseEntity<?> scrollByAuthorId(@PathVariable Long authorId,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "10") int size){
+        CursorPage<CommentResp> page = service.scrollByAuthorId(authorId, cursor, size);
+        return ResponseEntity.status(HttpStatus.OK).body(page);
+    }
+
     @GetMapping("/by-author/{authorId}")
     public ResponseEntity<?> findAllByAuthorId(@PathVariable Long authorId, Pageable pageable){
         List<CommentResp> commentList = service.findAllByAuthorId(authorId, pageable);
@@ -79,4 +100,21 @@ public class CommentController {
         return ResponseEntity.status(HttpStatus.OK).body(commentList);
     }
 
+    @Operation(
+            description = "All Comments of a Task, of an author or all of them, as one streamed NDJSON or CSV body",
+            summary = "Export comments"
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Long taskId,
+                                                        @RequestParam(required = false) Long authorId,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                        String acceptEncoding) {
+        if (taskId != null && authorId != null) {
+            throw new IllegalArgumentException("Export comments by taskId or by authorId, not both");
+        }
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        return exportService.respond("comments", exportFormat, acceptEncoding,
+                out -> exportService.exportComments(taskId, authorId, exportFormat, out));
+    }
 }
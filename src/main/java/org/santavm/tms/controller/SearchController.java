@@ -0,0 +1,46 @@
+package org.santavm.tms.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.santavm.tms.dto.SearchPage;
+import org.santavm.tms.service.SearchService;
+import org.santavm.tms.util.SearchIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/search")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "JWT Bearer")
+public class SearchController {
+    private final SearchService service;
+
+    // GET /search?q=login+page&kind=task&page=0&size=10
+    @Operation(
+            description = "Tasks by title and description and comments by content containing any of the words, "
+                    + "best matches first. kind is task or comment, both when omitted",
+            summary = "Full-text search"
+    )
+    @GetMapping
+    public ResponseEntity<SearchPage> search(@RequestParam("q") String query,
+                                             @RequestParam(required = false) String kind,
+                                             @RequestParam(defaultValue = "0") int page,
+                                             @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(service.search(query, kind(kind), page, size));
+    }
+
+    private static SearchIndex.Kind kind(String kind) {
+        if (kind == null || kind.isBlank()) return null;
+        try {
+            return SearchIndex.Kind.valueOf(kind.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown kind: " + kind + ", use task or comment");
+        }
+    }
+}
@@ -8,21 +8,34 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.santavm.tms.cache.ResponseBodyCache;
+import org.santavm.tms.dto.CursorPage;
+import org.santavm.tms.dto.ImportReport;
+import org.santavm.tms.dto.TaskBulkUpdate;
+import org.santavm.tms.dto.TaskCriteria;
 import org.santavm.tms.dto.TaskReq;
 import org.santavm.tms.dto.TaskResp;
 import org.santavm.tms.model.Task;
+import org.santavm.tms.service.ExportService;
+import org.santavm.tms.service.TaskImportService;
 import org.santavm.tms.service.TaskService;
 import org.santavm.tms.util.CustomPermissionException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -33,6 +46,9 @@ import java.util.NoSuchElementException;
 public class TaskController {
 
     private final TaskService service;
+    private final TaskImportService importService;
+    private final ExportService exportService;
+    private final ResponseBodyCache responseBodyCache;
 
     @Operation(
             description = "Add new Task from authenticated User with existing User as executor (optional)",
@@ -52,6 +68,21 @@ public class TaskController {
         return ResponseEntity.status(HttpStatus.CREATED).body("Task created with id: " + savedTask.getId());
     }
 
+    @Operation(
+            description = "Add Tasks from authenticated User, one Task per line of an NDJSON body. "
+                    + "Lines are inserted in chunks, wrong lines are reported and skipped.",
+            summary = "Import Tasks in bulk",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, see failed and errors",
+                            content = { @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ImportReport.class)) })
+            }
+    )
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ImportReport> importTasks(InputStream body, Authentication auth) throws IOException {
+        return ResponseEntity.ok(importService.importTasks(body, auth));
+    }
+
     @DeleteMapping("/{id}/delete")
     public ResponseEntity<?> deleteTask(@PathVariable Long id, Authentication auth){
         service.deleteTask( id, auth );
@@ -82,6 +113,24 @@ public class TaskController {
         return ResponseEntity.status(HttpStatus.OK).body("Task updated successfully: " + updatedTask);
     }
 
+    @Operation(
+            description = "Apply one change to every Task of authenticated User matching the filter. "
+                    + "Author can change any field, Executor only \"status\", like in update.",
+            summary = "Update Tasks in bulk",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Ids of the changed Tasks",
+                            content = { @Content(mediaType = "application/json",
+                                    schema = @Schema(example = "[1, 2]")) }),
+                    @ApiResponse(responseCode = "400", description = "Nothing to change OR wrong executorId",
+                            content = { @Content(mediaType = "text/plain; charset=utf-8",
+                                    schema = @Schema(example = "There is no Executor User with id: 3")) })
+            }
+    )
+    @PutMapping("/bulk-update")
+    public ResponseEntity<List<Long>> updateTasks(@Valid @RequestBody TaskBulkUpdate update, Authentication auth){
+        return ResponseEntity.ok(service.updateAll(update, auth));
+    }
+
     // GET /tasks/by-author/2?authorId=1&page=0&size=10&sort=createdAt,desc
     @GetMapping("/by-author/{authorId}")
     public ResponseEntity<?> finAllByAuthorId(@PathVariable("authorId") Long authorId,
@@ -113,6 +162,15 @@ public class TaskController {
         return ResponseEntity.status(HttpStatus.OK).body(fromDb);
     }
 
+    // GET /tasks/recently-active?page=0&size=10, tasks with the latest changes or comments first
+    @GetMapping("/recently-active")
+    public ResponseEntity<?> findRecentlyActive(@PageableDefault(page = 0, size = 10) Pageable pageable) {
+
+        List<TaskResp> fromDb = service.findRecentlyActive(pageable);
+
+        return ResponseEntity.status(HttpStatus.OK).body(fromDb);
+    }
+
     @GetMapping("/by-priority/{priority}")
     public ResponseEntity<?> finAllByPriority(@PathVariable("priority") Task.Priority priority,
                                               @PageableDefault(page = 0, size = 10, sort = "createdAt", direction = Sort.Direction.DESC)
@@ -123,21 +181,85 @@ public class TaskController {
         return ResponseEntity.status(HttpStatus.OK).body(fromDb);
     }
 
+    // cached JSON is written as is, Jackson runs only when the body is not in the response cache
     @GetMapping("/{id}")
-    public ResponseEntity<?> findOne(@PathVariable Long id){
-        return ResponseEntity.status(HttpStatus.OK).body(service.findOne(id));
+    public ResponseEntity<?> findOne(@PathVariable Long id,
+                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return responseBodyCache.respond("tasks", id, acceptEncoding, () -> service.findOne(id));
     }
 
+    // GET /tasks/criteria?authorId=1&status=ON_HOLD,IN_PROGRESS&createdFrom=2024-01-01T00:00:00Z&sort=lastActivityAt,desc
+    @Operation(
+            description = "Only the supplied filters are applied. status and priority take several values, " +
+                    "date ranges include \"from\" and exclude \"to\". " +
+                    "Sort by one of createdAt, lastActivityAt, commentCount, id, newest first by default",
+            summary = "Find tasks by criteria"
+    )
     @GetMapping("/criteria")
     public ResponseEntity<?> findByCriteria(@RequestParam(required = false) Long authorId,
                                      @RequestParam(required = false) Long executorId,
-                                     @RequestParam(required = false) Task.Status status,
-                                     @RequestParam(required = false) Task.Priority priority,
+                                     @RequestParam(required = false) List<Task.Status> status,
+                                     @RequestParam(required = false) List<Task.Priority> priority,
+                                     @RequestParam(required = false) Instant createdFrom,
+                                     @RequestParam(required = false) Instant createdTo,
+                                     @RequestParam(required = false) Instant updatedFrom,
+                                     @RequestParam(required = false) Instant updatedTo,
                                             Pageable pageable) {
-        List<TaskResp> fromDb = service.findByCriteria(authorId, executorId, status, priority, pageable);
+        TaskCriteria criteria = TaskCriteria.of(authorId, executorId, status, priority,
+                date(createdFrom), date(createdTo), date(updatedFrom), date(updatedTo));
+        List<TaskResp> fromDb = service.findByCriteria(criteria, pageable);
         return ResponseEntity.ok(fromDb);
     }
 
+    @Operation(
+            description = "All Tasks matching the optional filters of criteria as one streamed NDJSON or CSV body",
+            summary = "Export tasks"
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Long authorId,
+                                                        @RequestParam(required = false) Long executorId,
+                                                        @RequestParam(required = false) List<Task.Status> status,
+                                                        @RequestParam(required = false) List<Task.Priority> priority,
+                                                        @RequestParam(required = false) Instant createdFrom,
+                                                        @RequestParam(required = false) Instant createdTo,
+                                                        @RequestParam(required = false) Instant updatedFrom,
+                                                        @RequestParam(required = false) Instant updatedTo,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                        String acceptEncoding) {
+        TaskCriteria criteria = TaskCriteria.of(authorId, executorId, status, priority,
+                date(createdFrom), date(createdTo), date(updatedFrom), date(updatedTo));
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        return exportService.respond("tasks", exportFormat, acceptEncoding,
+                out -> exportService.exportTasks(criteria, exportFormat, out));
+    }
+
+    private static Date date(Instant instant) {
+        return instant == null ? null : Date.from(instant);
+    }
+
+    @Operation(
+            description = "Tasks matching the optional filters of criteria, newest first. " +
+                    "Pass \"next\" of a page as cursor to get the following one",
+            summary = "Scroll tasks with a cursor"
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scroll(@RequestParam(required = false) Long authorId,
+                                    @RequestParam(required = false) Long executorId,
+                                    @RequestParam(required = false) List<Task.Status> status,
+                                    @RequestParam(required = false) List<Task.Priority> priority,
+                                    @RequestParam(required = false) Instant createdFrom,
+                                    @RequestParam(required = false) Instant createdTo,
+                                    @RequestParam(required = false) Instant updatedFrom,
+                                    @RequestParam(required = false) Instant updatedTo,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(defaultValue = "10") int size) {
+        TaskCriteria criteria = TaskCriteria.of(authorId, executorId, status, priority,
+                date(createdFrom), date(createdTo), date(updatedFrom), date(updatedTo));
+        CursorPage<TaskResp> page = service.scroll(criteria, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     @Operation(
             description = "Get all Tasks",
             summary = "Get all tasks \"lazily\""
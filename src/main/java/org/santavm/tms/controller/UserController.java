@@ -10,12 +10,14 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.santavm.tms.cache.ResponseBodyCache;
 import org.santavm.tms.dto.AuthRequest;
 import org.santavm.tms.dto.UserReq;
 import org.santavm.tms.dto.AuthResponse;
 import org.santavm.tms.dto.UserResp;
 import org.santavm.tms.service.UserService;
 import org.santavm.tms.util.CustomPermissionException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -35,6 +37,7 @@ import java.util.NoSuchElementException;
 @Tag(name = "first controller for Users")
 public class UserController {
     private final UserService service;
+    private final ResponseBodyCache responseBodyCache;
 
     @Operation(summary = "Add new User to TMS")
     @ApiResponses(value = {
@@ -83,6 +86,22 @@ public class UserController {
         return ResponseEntity.ok(authResponse);
     }
 
+    @Operation(
+            description = "Revokes the JWT token from Authorization header until its expiration",
+            summary = "Logout",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Token revoked",
+                            content = { @Content(mediaType = "text/plain; charset=utf-8",
+                                    schema = @Schema( example = "User logged out successfully") ) })
+            }
+    )
+    @SecurityRequirement(name = "JWT Bearer")
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader){
+        service.logout(authHeader);
+        return ResponseEntity.ok("User logged out successfully");
+    }
+
     @Operation(
             description = "Without information about user's tasks and comments",
             summary = "Getting list of all users \"lazily\"",
@@ -132,8 +151,8 @@ public class UserController {
     @SecurityRequirement(name = "JWT Bearer")
 //    @Hidden
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable Long id){
-        UserResp response = service.getById(id);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getById(@PathVariable Long id,
+                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return responseBodyCache.respond("user_resp", id, acceptEncoding, () -> service.getById(id));
     }
 }
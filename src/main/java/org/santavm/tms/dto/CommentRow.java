@@ -0,0 +1,8 @@
+package org.santavm.tms.dto;
+
+import java.util.Date;
+
+// the comment columns of a CommentResp list item with the author name and the task title, no managed entity behind it
+public record CommentRow(Long id, String content, Long authorId, String authorFirstName, String authorLastName,
+                         Long taskId, String taskTitle, Date createdAt, Date updatedAt) {
+}
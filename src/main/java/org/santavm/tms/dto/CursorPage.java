@@ -0,0 +1,27 @@
+package org.santavm.tms.dto;
+
+import org.santavm.tms.util.Cursor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+// next is the token of the following page, null on the last one
+public record CursorPage<T>(List<T> items, String next) {
+    public static final int MAX_SIZE = 1000;
+
+    // one row more than asked tells whether there is a next page, without a count query
+    public static Pageable limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_SIZE + ": " + size);
+        }
+        return PageRequest.ofSize(size + 1);
+    }
+
+    public static <R, T> CursorPage<T> of(List<R> rows, int size, Function<R, Cursor> position, Function<R, T> mapper) {
+        List<R> page = rows.size() > size ? rows.subList(0, size) : rows;
+        String next = rows.size() > size ? position.apply(page.get(size - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), next);
+    }
+}
@@ -0,0 +1,12 @@
+package org.santavm.tms.dto;
+
+import java.util.List;
+
+// Outcome of a bulk import, errors lists at most the first MAX_ERRORS failed lines, failed counts all of them
+public record ImportReport(long imported, long failed, List<LineError> errors) {
+    public static final int MAX_ERRORS = 1000;
+
+    // line is 1-based, as in the request body
+    public record LineError(long line, String message) {
+    }
+}
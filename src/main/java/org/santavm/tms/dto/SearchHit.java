@@ -0,0 +1,6 @@
+package org.santavm.tms.dto;
+
+// kind is "task" or "comment", taskId is the task of a comment or the task itself,
+// label is the title of a task or the beginning of a comment
+public record SearchHit(String kind, Long id, Long taskId, String label, float score) {
+}
@@ -0,0 +1,7 @@
+package org.santavm.tms.dto;
+
+import java.util.List;
+
+// total counts every match, complete is false until the index is first built after startup
+public record SearchPage(List<SearchHit> hits, long total, boolean complete) {
+}
@@ -0,0 +1,29 @@
+package org.santavm.tms.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import org.santavm.tms.model.Task;
+
+import java.util.List;
+
+// body of /tasks/bulk-update: every task matching filter gets the non null fields of set
+public record TaskBulkUpdate(@NotNull @Valid Filter filter, @NotNull @Valid Change set) {
+
+    // filters as in /tasks/criteria, null or empty ones are left out
+    public record Filter(Long authorId, Long executorId, List<Task.Status> status, List<Task.Priority> priority) {
+        public TaskCriteria criteria() {
+            return TaskCriteria.of(authorId, executorId, status, priority, null, null, null, null);
+        }
+    }
+
+    public record Change(Task.Status status, Task.Priority priority, Long executorId) {
+        public boolean isEmpty() {
+            return status == null && priority == null && executorId == null;
+        }
+
+        // the executor of a task may change its status only
+        public boolean isStatusOnly() {
+            return priority == null && executorId == null;
+        }
+    }
+}
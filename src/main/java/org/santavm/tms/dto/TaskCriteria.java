@@ -0,0 +1,53 @@
+package org.santavm.tms.dto;
+
+import org.santavm.tms.model.Task;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+// filters of /tasks/criteria, null or empty ones are left out of the query, ranges are [from, to)
+public record TaskCriteria(Long authorId, Long executorId,
+                           Set<Task.Status> statuses, Set<Task.Priority> priorities,
+                           Date createdFrom, Date createdTo,
+                           Date updatedFrom, Date updatedTo) {
+
+    public TaskCriteria {
+        // enum sets keep a fixed order, so equal criteria print the same page cache key
+        statuses = statuses == null || statuses.isEmpty() ? EnumSet.noneOf(Task.Status.class) : EnumSet.copyOf(statuses);
+        priorities = priorities == null || priorities.isEmpty() ? EnumSet.noneOf(Task.Priority.class) : EnumSet.copyOf(priorities);
+        checkRange("created", createdFrom, createdTo);
+        checkRange("updated", updatedFrom, updatedTo);
+    }
+
+    public static TaskCriteria of(Long authorId, Long executorId, Task.Status status, Task.Priority priority) {
+        return new TaskCriteria(authorId, executorId,
+                status == null ? null : EnumSet.of(status), priority == null ? null : EnumSet.of(priority),
+                null, null, null, null);
+    }
+
+    public static TaskCriteria of(Long authorId, Long executorId,
+                                  Collection<Task.Status> statuses, Collection<Task.Priority> priorities,
+                                  Date createdFrom, Date createdTo, Date updatedFrom, Date updatedTo) {
+        return new TaskCriteria(authorId, executorId,
+                statuses == null || statuses.isEmpty() ? null : EnumSet.copyOf(statuses),
+                priorities == null || priorities.isEmpty() ? null : EnumSet.copyOf(priorities),
+                createdFrom, createdTo, updatedFrom, updatedTo);
+    }
+
+    private static void checkRange(String name, Date from, Date to) {
+        if (from != null && to != null && !from.before(to)) {
+            throw new IllegalArgumentException(name + "From must be before " + name + "To");
+        }
+    }
+
+    public String key() {
+        return authorId + "," + executorId + "," + statuses + "," + priorities + ","
+                + time(createdFrom) + "-" + time(createdTo) + "," + time(updatedFrom) + "-" + time(updatedTo);
+    }
+
+    private static String time(Date date) {
+        return date == null ? "" : String.valueOf(date.getTime());
+    }
+}
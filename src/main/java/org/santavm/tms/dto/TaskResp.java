@@ -18,4 +18,5 @@ public class TaskResp {
     private String comments;
     private String createdAt;
     private String updatedAt;
+    private String lastActivityAt;
 }
@@ -0,0 +1,12 @@
+package org.santavm.tms.dto;
+
+import org.santavm.tms.model.Task;
+
+import java.util.Date;
+
+// the task columns of a TaskResp list item with author and executor names, no managed entity behind it
+public record TaskRow(Long id, String title, String description, Task.Status status, Task.Priority priority,
+                      Long authorId, String authorFirstName, String authorLastName,
+                      Long executorId, String executorFirstName, String executorLastName,
+                      Date createdAt, Date updatedAt, int commentCount, Date lastActivityAt) {
+}
@@ -0,0 +1,4 @@
+package org.santavm.tms.dto;
+
+public record TokenVersion(Long userId, int version) {
+}
@@ -0,0 +1,13 @@
+package org.santavm.tms.dto;
+
+// One row of UserRepository.findActivity: an authored (A) or executed (E) task with its title,
+// or a comment (C) with the task it belongs to
+public interface UserActivity {
+    String getKind();
+
+    Long getId();
+
+    String getTitle();
+
+    Long getTaskId();
+}
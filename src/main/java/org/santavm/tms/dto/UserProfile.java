@@ -0,0 +1,7 @@
+package org.santavm.tms.dto;
+
+import org.santavm.tms.model.User;
+
+// the user_table columns of UserResp, without the entity
+public record UserProfile(Long id, String firstName, String lastName, String email, User.Role role) {
+}
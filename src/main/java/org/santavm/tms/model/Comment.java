@@ -46,13 +46,18 @@ public class Comment {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    // as in Task, the other side is updated only when it is loaded already
     public void setAuthor(User author){
-        author.getComments().add(this);
+        if (Hibernate.isInitialized(author) && Hibernate.isInitialized(author.getComments())) {
+            author.getComments().add(this);
+        }
         this.author = author;
     }
 
     public void setTask(Task task){
-        task.getComments().add(this);
+        if (Hibernate.isInitialized(task) && Hibernate.isInitialized(task.getComments())) {
+            task.getComments().add(this);
+        }
         this.task = task;
     }
 
@@ -0,0 +1,39 @@
+package org.santavm.tms.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "revoked_token_expires_idx", columnList = "expiresAt")
+})
+public class RevokedToken {
+    // SHA-256 digest of a single token or "user:<id>" for all tokens of the user
+    @Id
+    @Column(length = 64)
+    private String tokenKey;
+
+    // after this moment the token is expired anyway and the entry can be removed
+    @Temporal(TemporalType.TIMESTAMP)
+    @NotNull
+    private Date expiresAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date revokedAt;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" +
+                "tokenKey = " + tokenKey + ", " +
+                "expiresAt = " + expiresAt + ", " +
+                "revokedAt = " + revokedAt + ")";
+    }
+}
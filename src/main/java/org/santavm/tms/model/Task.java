@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.*;
 
@@ -15,9 +16,7 @@ import java.util.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-//@Table(indexes = {
-//        @Index(name = "task_author_idx", columnList = "author")
-//})
+// indexes for the list queries are created by db/migration/V2__list_query_indexes.sql
 public class Task {
     @Id
     @GeneratedValue
@@ -66,6 +65,16 @@ public class Task {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    // maintained by atomic updates in TaskRepository, never written back from the entity
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int commentCount = 0;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false, updatable = false)
+    private Date lastActivityAt;
+
     public HashSet<String> fieldsChanged(Task task){
         HashSet<String> fieldsList = new HashSet<>();
 
@@ -89,19 +98,27 @@ public class Task {
         LOW,
     }
 
+    // the user side is kept in sync only when it is loaded already, the task side is the one that is written,
+    // touching a proxy or a lazy collection here would load the user or all of its tasks
     public void setAuthor(User author){
         this.author = author;
-        author.getAuthoredTasks().add(this);
+        if (Hibernate.isInitialized(author) && Hibernate.isInitialized(author.getAuthoredTasks())) {
+            author.getAuthoredTasks().add(this);
+        }
     }
 
     public void setExecutor(User executor){
         if(executor == null){  // removing executor
             if(this.executor == null) return;
-            this.executor.getExecutedTasks().remove(this);
+            if (Hibernate.isInitialized(this.executor) && Hibernate.isInitialized(this.executor.getExecutedTasks())) {
+                this.executor.getExecutedTasks().remove(this);
+            }
             this.executor = null;
             return;
         }
-        executor.getExecutedTasks().add(this);
+        if (Hibernate.isInitialized(executor) && Hibernate.isInitialized(executor.getExecutedTasks())) {
+            executor.getExecutedTasks().add(this);
+        }
         this.executor = executor;
     }
 
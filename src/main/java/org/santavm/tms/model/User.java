@@ -7,9 +7,9 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.*;
 
@@ -22,7 +22,7 @@ import java.util.*;
 @Table(name = "user_table", indexes = {
         @Index(name = "email_idx", columnList = "email")
 })
-public class User implements UserDetails {
+public class User implements UserPrincipal {
     @Id
     @GeneratedValue
     private Long id;
@@ -46,6 +46,12 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // bumped on every update, tokens issued with an older version are rejected
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int tokenVersion = 0;
+
     @OneToMany(mappedBy = "author",
             cascade = CascadeType.ALL,
             orphanRemoval = true,
@@ -0,0 +1,10 @@
+package org.santavm.tms.model;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+// Principal put into the SecurityContext: either a User entity or an AuthUser built from JWT claims
+public interface UserPrincipal extends UserDetails {
+    Long getId();
+
+    User.Role getRole();
+}
@@ -1,5 +1,8 @@
 package org.santavm.tms.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.santavm.tms.dto.CommentRow;
 import org.santavm.tms.model.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,17 +10,63 @@ import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListPagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    @EntityGraph(attributePaths = {"author", "task"})
-    List<Comment> findAllByTaskId(Long taskId, Pageable pageable);
+    String COMMENT_ROWS = "SELECT new org.santavm.tms.dto.CommentRow(c.id, c.content, " +
+            "a.id, a.firstName, a.lastName, t.id, t.title, c.createdAt, c.updatedAt) " +
+            "FROM Comment c JOIN c.author a JOIN c.task t ";
 
-    @EntityGraph(attributePaths = {"author", "task"})
-    List<Comment> findAllByAuthorId(Long authorId, Pageable pageable);
+    @Query(COMMENT_ROWS + "WHERE c.taskId = ?1")
+    List<CommentRow> findRowsByTaskId(Long taskId, Pageable pageable);
+
+    @Query(COMMENT_ROWS + "WHERE c.authorId = ?1")
+    List<CommentRow> findRowsByAuthorId(Long authorId, Pageable pageable);
+
+    @Query(COMMENT_ROWS)
+    List<CommentRow> findRows(Pageable pageable);
+
+    @Query(COMMENT_ROWS + "WHERE c.id = ?1")
+    Optional<CommentRow> findRowById(Long id);
+
+    // exports, in id order from a forward-only cursor, see TaskRepositoryCustom.streamRows
+    @Query(COMMENT_ROWS + "WHERE c.taskId = ?1 ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TaskRepositoryCustom.EXPORT_FETCH_SIZE))
+    Stream<CommentRow> streamRowsByTaskId(Long taskId);
+
+    @Query(COMMENT_ROWS + "WHERE c.authorId = ?1 ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TaskRepositoryCustom.EXPORT_FETCH_SIZE))
+    Stream<CommentRow> streamRowsByAuthorId(Long authorId);
+
+    @Query(COMMENT_ROWS + "ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TaskRepositoryCustom.EXPORT_FETCH_SIZE))
+    Stream<CommentRow> streamRows();
+
+    // keyset pages: rows after the cursor in (createdAt desc, id desc) order, the Pageable only limits the rows.
+    // The redundant createdAt <= :createdAt makes a range of the index, see TaskRepositoryCustomImpl.after
+    @Query(COMMENT_ROWS + "WHERE c.taskId = :taskId AND " +
+            "c.createdAt <= :createdAt AND (c.createdAt < :createdAt OR c.id < :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentRow> scrollRowsByTaskId(@Param("taskId") Long taskId,
+                                        @Param("createdAt") Date createdAt,
+                                        @Param("id") Long id,
+                                        Pageable limit);
+
+    @Query(COMMENT_ROWS + "WHERE c.authorId = :authorId AND " +
+            "c.createdAt <= :createdAt AND (c.createdAt < :createdAt OR c.id < :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentRow> scrollRowsByAuthorId(@Param("authorId") Long authorId,
+                                          @Param("createdAt") Date createdAt,
+                                          @Param("id") Long id,
+                                          Pageable limit);
 }
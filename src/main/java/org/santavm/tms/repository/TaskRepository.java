@@ -1,41 +1,39 @@
 package org.santavm.tms.repository;
 
+import org.santavm.tms.dto.TaskRow;
 import org.santavm.tms.model.Task;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListPagingAndSortingRepository;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.ContentHandler;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
-    List<Task> findAllByAuthorId(Long authorId, Pageable pageable);
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+    String TASK_ROWS = "SELECT new org.santavm.tms.dto.TaskRow(t.id, t.title, t.description, t.status, t.priority, " +
+            "a.id, a.firstName, a.lastName, e.id, e.firstName, e.lastName, t.createdAt, t.updatedAt, " +
+            "t.commentCount, t.lastActivityAt) " +
+            "FROM Task t JOIN t.author a LEFT JOIN t.executor e ";
 
-    List<Task> findAllByExecutorId(Long executorId, Pageable pageable);
+    @Query(TASK_ROWS + "WHERE t.authorId = ?1")
+    List<TaskRow> findRowsByAuthorId(Long authorId, Pageable pageable);
 
-    List<Task> findAllByStatus(Task.Status status, Pageable pageable);
+    @Query(TASK_ROWS + "WHERE t.executorId = ?1")
+    List<TaskRow> findRowsByExecutorId(Long executorId, Pageable pageable);
 
-    List<Task> findAllByPriority(Task.Priority priority, Pageable pageable);
+    @Query(TASK_ROWS + "WHERE t.status = ?1")
+    List<TaskRow> findRowsByStatus(Task.Status status, Pageable pageable);
 
-    @Query("SELECT t FROM Task t WHERE " +
-            "(:authorId IS NULL OR t.authorId = :authorId) AND " +
-            "(:executorId IS NULL OR t.executorId = :executorId) AND " +
-            "(:status IS NULL OR t.status = :status) AND " +
-            "(:priority IS NULL OR t.priority = :priority)")
-    List<Task> findByCriteria(@Param("authorId") Long authorId,
-                              @Param("executorId") Long executorId,
-                              @Param("status") Task.Status status,
-                              @Param("priority") Task.Priority priority,
-                              Pageable pageable);
+    @Query(TASK_ROWS + "WHERE t.priority = ?1")
+    List<TaskRow> findRowsByPriority(Task.Priority priority, Pageable pageable);
 
     @Modifying
     @Transactional
@@ -45,6 +43,30 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("SELECT t FROM Task t LEFT JOIN FETCH t.comments JOIN FETCH t.author LEFT JOIN FETCH t.executor WHERE t.id = ?1")
     Optional<Task> findFullTask(Long id);
 
-    @EntityGraph(attributePaths = {"author", "executor", "comments"})
-    Page<Task> findAllBy(Pageable pageable);
+    // the first phase of /tasks/all: the page is cut from ids only, no join multiplies its rows
+    @Query("SELECT t.id FROM Task t")
+    List<Long> findIds(Pageable pageable);
+
+    @Query(TASK_ROWS + "WHERE t.id IN ?1")
+    List<TaskRow> findRowsByIdIn(Collection<Long> ids);
+
+    // the Pageable only limits the rows, the order is the one of task_last_activity_idx
+    @Query(TASK_ROWS + "ORDER BY t.lastActivityAt DESC, t.id DESC")
+    List<TaskRow> findRowsByRecentActivity(Pageable limit);
+
+    // activity columns are changed in place, concurrent comments on one task do not lose counts
+    @Modifying
+    @Query("UPDATE Task t SET t.commentCount = t.commentCount + ?2, t.lastActivityAt = ?3 WHERE t.id = ?1")
+    int addComments(Long taskId, int delta, Date at);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.lastActivityAt = ?2 WHERE t.id = ?1")
+    int touch(Long taskId, Date at);
+
+    // before the comments of the user are removed along with the user
+    @Modifying
+    @Query("UPDATE Task t SET t.commentCount = t.commentCount - CAST(" +
+            "(SELECT COUNT(c) FROM Comment c WHERE c.taskId = t.id AND c.authorId = ?1) AS Integer) " +
+            "WHERE t.id IN (SELECT c.taskId FROM Comment c WHERE c.authorId = ?1)")
+    int removeCommentsOf(Long authorId);
 }
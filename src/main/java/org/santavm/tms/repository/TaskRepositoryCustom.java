@@ -0,0 +1,48 @@
+package org.santavm.tms.repository;
+
+import org.santavm.tms.dto.TaskBulkUpdate;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.dto.TaskRow;
+import org.santavm.tms.model.Task;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface TaskRepositoryCustom {
+    // columns with an index to read a page in order, see db/migration
+    Set<String> SORT_KEYS = Set.of("createdAt", "lastActivityAt", "commentCount", "id");
+
+    // rows a cursor of an export reads per round trip, the stream holds no more than that in memory
+    String EXPORT_FETCH_SIZE = "500";
+
+    // the query has only the predicates of the supplied filters, so each combination gets a plan of its own
+    List<TaskRow> findRows(TaskCriteria criteria, Pageable pageable);
+
+    // keyset page: up to limit rows after (createdAt, id) in (createdAt desc, id desc) order, filtered like findRows
+    List<TaskRow> scrollRows(TaskCriteria criteria, Date createdAt, Long id, int limit);
+
+    // every matching row in id order from a forward-only cursor, to be consumed inside a transaction and closed
+    Stream<TaskRow> streamRows(TaskCriteria criteria);
+
+    // One UPDATE statement for every task of the user matching the criteria, executed ones too with executedToo.
+    // Tasks the change would leave as they are are skipped. Returns the updated tasks as they were before,
+    // Task instances already in the persistence context are not refreshed.
+    List<Updated> updateAll(TaskCriteria criteria, Long userId, boolean executedToo, TaskBulkUpdate.Change change, Date at);
+
+    record Updated(Long id, Long authorId, Long executorId, Task.Status status, Task.Priority priority) {
+    }
+
+    // called by the service too, past the repository proxy the exception is translated into a DataAccessException
+    static void checkSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORT_KEYS.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Tasks can not be sorted by " + order.getProperty()
+                        + ", use one of " + SORT_KEYS);
+            }
+        }
+    }
+}
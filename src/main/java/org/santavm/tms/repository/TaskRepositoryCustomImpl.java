@@ -0,0 +1,239 @@
+package org.santavm.tms.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.santavm.tms.dto.TaskBulkUpdate;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.dto.TaskRow;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+    private ReturningOld returningOld;
+
+    // an unsupported database fails the startup rather than the first bulk update
+    @PostConstruct
+    void resolveDialect() {
+        returningOld = ReturningOld.of(entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect());
+    }
+
+    @Override
+    public List<TaskRow> findRows(TaskCriteria criteria, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskRow> query = cb.createQuery(TaskRow.class);
+        Root<Task> t = query.from(Task.class);
+        query.select(this.row(cb, t));
+        query.where(this.predicates(cb, t, criteria).toArray(Predicate[]::new));
+        query.orderBy(this.orders(cb, t, pageable.getSort()));
+
+        TypedQuery<TaskRow> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        return typed.getResultList();
+    }
+
+    @Override
+    public List<TaskRow> scrollRows(TaskCriteria criteria, Date createdAt, Long id, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskRow> query = cb.createQuery(TaskRow.class);
+        Root<Task> t = query.from(Task.class);
+        query.select(this.row(cb, t));
+        List<Predicate> predicates = this.predicates(cb, t, criteria);
+        predicates.addAll(this.after(cb, t, createdAt, id));
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(t.get("createdAt")), cb.desc(t.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * (createdAt, id) &lt; (:createdAt, :id). The redundant createdAt &lt;= :createdAt is what the planner
+     * turns into a range of the (..., created_at DESC, id DESC) index, the OR alone is a filter on all rows
+     * and a deep page would cost as much as scanning to it.
+     */
+    private List<Predicate> after(CriteriaBuilder cb, Root<Task> t, Date createdAt, Long id) {
+        return List.of(cb.lessThanOrEqualTo(t.get("createdAt"), createdAt),
+                cb.or(cb.lessThan(t.get("createdAt"), createdAt), cb.lessThan(t.get("id"), id)));
+    }
+
+    @Override
+    public Stream<TaskRow> streamRows(TaskCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskRow> query = cb.createQuery(TaskRow.class);
+        Root<Task> t = query.from(Task.class);
+        query.select(this.row(cb, t));
+        query.where(this.predicates(cb, t, criteria).toArray(Predicate[]::new));
+        query.orderBy(cb.asc(t.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private CompoundSelection<TaskRow> row(CriteriaBuilder cb, Root<Task> t) {
+        Join<Task, User> a = t.join("author");
+        Join<Task, User> e = t.join("executor", JoinType.LEFT);
+        return cb.construct(TaskRow.class, t.get("id"), t.get("title"), t.get("description"),
+                t.get("status"), t.get("priority"),
+                a.get("id"), a.get("firstName"), a.get("lastName"),
+                e.get("id"), e.get("firstName"), e.get("lastName"),
+                t.get("createdAt"), t.get("updatedAt"), t.get("commentCount"), t.get("lastActivityAt"));
+    }
+
+    private List<Predicate> predicates(CriteriaBuilder cb, Root<Task> t, TaskCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.authorId() != null) predicates.add(cb.equal(t.get("authorId"), criteria.authorId()));
+        if (criteria.executorId() != null) predicates.add(cb.equal(t.get("executorId"), criteria.executorId()));
+        this.oneOf(cb, t.get("status"), criteria.statuses(), predicates);
+        this.oneOf(cb, t.get("priority"), criteria.priorities(), predicates);
+        this.range(cb, t.get("createdAt"), criteria.createdFrom(), criteria.createdTo(), predicates);
+        this.range(cb, t.get("updatedAt"), criteria.updatedFrom(), criteria.updatedTo(), predicates);
+        return predicates;
+    }
+
+    // a single value is an equality, so the plan is the same as for the by-status and by-priority queries
+    private void oneOf(CriteriaBuilder cb, Path<Object> path, Set<?> values, List<Predicate> predicates) {
+        if (values.size() == 1) {
+            predicates.add(cb.equal(path, values.iterator().next()));
+        } else if (!values.isEmpty()) {
+            predicates.add(path.in(values));
+        }
+    }
+
+    private void range(CriteriaBuilder cb, Path<Date> path, Date from, Date to, List<Predicate> predicates) {
+        if (from != null) predicates.add(cb.greaterThanOrEqualTo(path, from));
+        if (to != null) predicates.add(cb.lessThan(path, to));
+    }
+
+    // newest first by default, id breaks ties in the direction of the last key like in the (key, id) indexes
+    private List<Order> orders(CriteriaBuilder cb, Root<Task> t, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        Sort.Direction last = Sort.Direction.DESC;
+        if (sort.isUnsorted()) {
+            orders.add(cb.desc(t.get("createdAt")));
+        }
+        TaskRepositoryCustom.checkSort(sort);
+        for (Sort.Order order : sort) {
+            last = order.getDirection();
+            if (order.getProperty().equals("id")) break;
+            orders.add(order.isAscending() ? cb.asc(t.get(order.getProperty())) : cb.desc(t.get(order.getProperty())));
+        }
+        orders.add(last.isAscending() ? cb.asc(t.get("id")) : cb.desc(t.get("id")));
+        return orders;
+    }
+
+    @Override
+    public List<Updated> updateAll(TaskCriteria criteria, Long userId, boolean executedToo,
+                                   TaskBulkUpdate.Change change, Date at) {
+        List<Object> params = new ArrayList<>();
+        Timestamp timestamp = new Timestamp(at.getTime());
+        List<String> set = new ArrayList<>(List.of("updated_at = " + param(params, timestamp),
+                "last_activity_at = " + param(params, timestamp)));
+        // at least one of the changed columns differs, the rest of the rows are not written
+        List<String> differs = new ArrayList<>();
+        if (change.status() != null) {
+            set.add("status = " + param(params, change.status().name()));
+            differs.add("status <> " + param(params, change.status().name()));
+        }
+        if (change.priority() != null) {
+            set.add("priority = " + param(params, change.priority().name()));
+            differs.add("priority <> " + param(params, change.priority().name()));
+        }
+        if (change.executorId() != null) {
+            set.add("executor_id = " + param(params, change.executorId()));
+            differs.add("executor_id IS DISTINCT FROM " + param(params, change.executorId()));
+        }
+
+        List<String> where = new ArrayList<>();
+        where.add(executedToo
+                ? "(author_id = " + param(params, userId) + " OR executor_id = " + param(params, userId) + ")"
+                : "author_id = " + param(params, userId));
+        if (criteria.authorId() != null) where.add("author_id = " + param(params, criteria.authorId()));
+        if (criteria.executorId() != null) where.add("executor_id = " + param(params, criteria.executorId()));
+        this.oneOf("status", criteria.statuses(), params, where);
+        this.oneOf("priority", criteria.priorities(), params, where);
+        this.range("created_at", criteria.createdFrom(), criteria.createdTo(), params, where);
+        this.range("updated_at", criteria.updatedFrom(), criteria.updatedTo(), params, where);
+        where.add("(" + String.join(" OR ", differs) + ")");
+
+        String sql = returningOld.sql(String.join(", ", set), String.join(" AND ", where));
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        List<?> rows = query.getResultList();
+        return rows.stream().map(row -> (Object[]) row).map(row -> new Updated(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                row[2] == null ? null : ((Number) row[2]).longValue(),
+                Task.Status.valueOf((String) row[3]),
+                Task.Priority.valueOf((String) row[4]))).toList();
+    }
+
+    private static String param(List<Object> params, Object value) {
+        params.add(value);
+        return "?" + params.size();
+    }
+
+    private void oneOf(String column, Set<? extends Enum<?>> values, List<Object> params, List<String> where) {
+        if (values.isEmpty()) return;
+        where.add(column + " IN (" + values.stream().map(value -> param(params, value.name()))
+                .collect(Collectors.joining(", ")) + ")");
+    }
+
+    private void range(String column, Date from, Date to, List<Object> params, List<String> where) {
+        if (from != null) where.add(column + " >= " + param(params, new Timestamp(from.getTime())));
+        if (to != null) where.add(column + " < " + param(params, new Timestamp(to.getTime())));
+    }
+
+    // the old values of the updated rows come back from the same statement
+    enum ReturningOld {
+        POSTGRESQL {
+            @Override
+            String sql(String set, String where) {
+                // RETURNING sees the new row only, the old one is joined in locked by the subquery
+                return "UPDATE task t SET " + set
+                        + " FROM (SELECT id, author_id, executor_id, status, priority FROM task WHERE " + where + " FOR UPDATE) prev"
+                        + " WHERE t.id = prev.id RETURNING prev.id, prev.author_id, prev.executor_id, prev.status, prev.priority";
+            }
+        },
+        H2 {
+            @Override
+            String sql(String set, String where) {
+                return "SELECT id, author_id, executor_id, status, priority FROM OLD TABLE (UPDATE task SET " + set
+                        + " WHERE " + where + ")";
+            }
+        };
+
+        abstract String sql(String set, String where);
+
+        static ReturningOld of(Dialect dialect) {
+            if (dialect instanceof PostgreSQLDialect) return POSTGRESQL;
+            if (dialect instanceof H2Dialect) return H2;
+            throw new UnsupportedOperationException("Bulk updates are implemented for PostgreSQL and H2 only, not for "
+                    + dialect.getClass().getSimpleName());
+        }
+    }
+}
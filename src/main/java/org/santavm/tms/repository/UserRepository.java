@@ -1,22 +1,34 @@
 package org.santavm.tms.repository;
 
+import org.santavm.tms.dto.TokenVersion;
+import org.santavm.tms.dto.UserActivity;
+import org.santavm.tms.dto.UserProfile;
 import org.santavm.tms.model.User;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    @Cacheable(value = "users", key = "#email")
+    // absent emails are not cached here, they go to the short-lived "missing" cache, see NegativeCache
+    @Cacheable(value = "users", key = "#email", unless = "#result == null")
     Optional<User> findByEmail(String email);
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.executedTasks WHERE u.id = ?1")
     Optional<User> findByIdWithTasks(Long userId);
 
+    // the ids of the given ones that exist, checked in one query
+    @Query("SELECT u.id FROM User u WHERE u.id IN ?1")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
     @EntityGraph(attributePaths = {"comments"})
     Optional<User> findOneById(Long id);
 
@@ -24,4 +36,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findOneByIdWithTasks(Long id);
 
     Optional<User> findUserByEmail(String email);  // for caching purpose only
+
+    @Query("SELECT new org.santavm.tms.dto.UserProfile(u.id, u.firstName, u.lastName, u.email, u.role) FROM User u WHERE u.id = ?1")
+    Optional<UserProfile> findProfile(Long id);
+
+    // everything UserResp lists in one statement, no entities are loaded
+    @Query(value = """
+            SELECT 'A' AS kind, t.id AS id, t.title AS title, CAST(NULL AS BIGINT) AS taskId FROM task t WHERE t.author_id = :id
+            UNION ALL
+            SELECT 'E', t.id, t.title, CAST(NULL AS BIGINT) FROM task t WHERE t.executor_id = :id
+            UNION ALL
+            SELECT 'C', c.id, CAST(NULL AS VARCHAR(255)), c.task_id FROM comment c WHERE c.author_id = :id
+            ORDER BY kind, id""", nativeQuery = true)
+    List<UserActivity> findActivity(@Param("id") Long id);
+
+    @Query("SELECT new org.santavm.tms.dto.TokenVersion(u.id, u.tokenVersion) FROM User u WHERE u.tokenVersion > 0")
+    List<TokenVersion> findTokenVersions();
 }
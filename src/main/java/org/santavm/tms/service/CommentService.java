@@ -3,16 +3,22 @@ package org.santavm.tms.service;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
-import org.hibernate.Hibernate;
+import org.santavm.tms.cache.CacheInvalidator;
+import org.santavm.tms.cache.QueryCache;
 import org.santavm.tms.dto.CommentReq;
 import org.santavm.tms.dto.CommentResp;
+import org.santavm.tms.dto.CommentRow;
+import org.santavm.tms.dto.CursorPage;
 import org.santavm.tms.model.Comment;
 import org.santavm.tms.model.Task;
 import org.santavm.tms.model.User;
+import org.santavm.tms.model.UserPrincipal;
 import org.santavm.tms.repository.CommentRepository;
 import org.santavm.tms.repository.TaskRepository;
 import org.santavm.tms.repository.UserRepository;
+import org.santavm.tms.util.Cursor;
 import org.santavm.tms.util.CustomPermissionException;
+import org.santavm.tms.util.NotFoundException;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Pageable;
@@ -27,7 +33,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -36,6 +42,9 @@ public class CommentService {
     private final CommentRepository repository;
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
+    private final QueryCache queryCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final SearchService searchService;
 
     @Caching(evict = {
             @CacheEvict(value = "tasks", key = "#result.taskId"),
@@ -43,7 +52,7 @@ public class CommentService {
     })
     public Comment deleteOne(Long id, Authentication auth){
         Comment comment = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("There is no Comment with id: "+id));
+                .orElseThrow(() -> new NotFoundException("There is no Comment with id: "+id));
         Long authorId = comment.getAuthorId();
 
         // Only User-Author can delete Comment
@@ -54,15 +63,21 @@ public class CommentService {
         }
 
         repository.deleteById(id);
+        taskRepository.addComments(comment.getTaskId(), -1, new Date());
+        // task pages show the number of comments
+        Set<String> dimensions = QueryCache.listing(comment.getTask());
+        dimensions.add(QueryCache.commentsOfTask(comment.getTaskId()));
+        queryCache.bump(dimensions);
+        searchService.removeComment(id);
 
         return comment;    // for caching purpose only
     }
 
-    // no need to evict cache for Users and Tasks because only comment's content can be changed
+    // only comment's content can be changed, the task shows it as its last activity
     public Long update(Long id, CommentReq newComment, Authentication auth){
 
         Comment fromDB = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("There is no Comment with id: " + id));
+                .orElseThrow(() -> new NotFoundException("There is no Comment with id: " + id));
         Long authorId = fromDB.getAuthorId();
 
         // Only User-Author can update Comment
@@ -74,6 +89,12 @@ public class CommentService {
 
         fromDB.setContent(newComment.getContent());
         fromDB.setUpdatedAt(new Date());
+        taskRepository.touch(fromDB.getTaskId(), fromDB.getUpdatedAt());
+        cacheInvalidator.evict("tasks", fromDB.getTaskId());
+        Set<String> dimensions = QueryCache.listing(fromDB.getTask());
+        dimensions.add(QueryCache.commentsOfTask(fromDB.getTaskId()));
+        queryCache.bump(dimensions);
+        searchService.indexComment(id, fromDB.getTaskId(), authorId, fromDB.getContent());
 
         return repository.save(fromDB).getId();
     }
@@ -87,63 +108,76 @@ public class CommentService {
         Long userId = this.extractUserId(auth);
         User author = userRepository.getReferenceById(userId);
         Task task = taskRepository.findById(comment.getTaskId()).orElseThrow(
-                () -> new NoSuchElementException("There is no Task with taskId: " + comment.getTaskId())
+                () -> new NotFoundException("There is no Task with taskId: " + comment.getTaskId())
         );
         Comment newComment = new Comment();
         newComment.setTask(task);
         newComment.setContent(comment.getContent());
         newComment.setAuthor(author);
         newComment.setCreatedAt(new Date());
-
-        return repository.saveAndFlush(newComment);
+        taskRepository.addComments(task.getId(), 1, newComment.getCreatedAt());
+        Set<String> dimensions = QueryCache.listing(task);
+        dimensions.add(QueryCache.commentsOfTask(task.getId()));
+        queryCache.bump(dimensions);
+
+        Comment saved = repository.saveAndFlush(newComment);
+        searchService.indexComment(saved.getId(), task.getId(), userId, saved.getContent());
+        return saved;
     }
 
     private Long extractUserId(Authentication auth) {
-        User user = null;
+        UserPrincipal user = null;
         if (auth instanceof UsernamePasswordAuthenticationToken token) {
-            user = (User) token.getPrincipal();
+            user = (UserPrincipal) token.getPrincipal();
         }
         assert user != null;
         return user.getId();
     }
 
+    // names of the comment authors are embedded, so renaming any user bumps USERS
     public List<CommentResp> findAllByTaskId(Long taskId, Pageable pageable) {
-        List<Comment> commentList = repository.findAllByTaskId(taskId, pageable);
-        return commentList.stream().map(this::toResponse).toList();
+        return queryCache.page(QueryCache.COMMENT_PAGES, "by-task:" + taskId, pageable,
+                List.of(QueryCache.commentsOfTask(taskId), QueryCache.USERS), () -> {
+            List<CommentRow> rows = repository.findRowsByTaskId(taskId, pageable);
+            return rows.stream().map(this::toResponse).toList();
+        });
     }
 
     public List<CommentResp> findAllByAuthorId(Long authorId, Pageable pageable) {
-        List<Comment> commentList = repository.findAllByAuthorId(authorId, pageable);
-        return commentList.stream().map(this::toResponse).toList();
+        List<CommentRow> rows = repository.findRowsByAuthorId(authorId, pageable);
+        return rows.stream().map(this::toResponse).toList();
+    }
+
+    // keyset pagination, a deep page costs the same as the first one
+    public CursorPage<CommentResp> scrollByTaskId(Long taskId, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        List<CommentRow> rows = repository.scrollRowsByTaskId(taskId, after.timestamp(), after.id(), CursorPage.limit(size));
+        return CursorPage.of(rows, size, row -> Cursor.after(row.createdAt(), row.id()), this::toResponse);
+    }
+
+    public CursorPage<CommentResp> scrollByAuthorId(Long authorId, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        List<CommentRow> rows = repository.scrollRowsByAuthorId(authorId, after.timestamp(), after.id(), CursorPage.limit(size));
+        return CursorPage.of(rows, size, row -> Cursor.after(row.createdAt(), row.id()), this::toResponse);
     }
 
     public List<CommentResp> findAllBy(Pageable pageable) {
-        List<Comment> commentList = repository.findAll( pageable).getContent();
-        return commentList.stream().map(this::toResponse).toList();
+        List<CommentRow> rows = repository.findRows(pageable);
+        return rows.stream().map(this::toResponse).toList();
     }
 
-    private CommentResp toResponse(Comment comment){
+    // list items are built from projections, so list endpoints load no managed entities
+    private CommentResp toResponse(CommentRow row) {
         CommentResp resp = new CommentResp();
-        resp.setId(comment.getId());
-        resp.setContent(comment.getContent());
-        resp.setCreatedAt( this.toLocalDateTime(comment.getCreatedAt()));
-        resp.setUpdatedAt( this.toLocalDateTime(comment.getUpdatedAt()));
-        if ( Hibernate.isInitialized(comment.getAuthor()) ){
-            User author = comment.getAuthor();
-            resp.setAuthor("id: " + author.getId()
-                    + ", name: " + author.getFirstName()
-                    + ", surname: " + author.getLastName());
-        } else {
-            resp.setAuthor("id: " + comment.getAuthorId());
-        }
-        if ( Hibernate.isInitialized( comment.getTask() )){
-            Task task = comment.getTask();
-            resp.setTask("id: " + task.getId()
-            + ", title: " + task.getTitle());
-        } else {
-            resp.setTask("id: " + comment.getTaskId());
-        }
-
+        resp.setId(row.id());
+        resp.setContent(row.content());
+        resp.setCreatedAt( this.toLocalDateTime(row.createdAt()));
+        resp.setUpdatedAt( this.toLocalDateTime(row.updatedAt()));
+        resp.setAuthor("id: " + row.authorId()
+                + ", name: " + row.authorFirstName()
+                + ", surname: " + row.authorLastName());
+        resp.setTask("id: " + row.taskId()
+                + ", title: " + row.taskTitle());
         return resp;
     }
 
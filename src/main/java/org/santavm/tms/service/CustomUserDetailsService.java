@@ -1,22 +1,50 @@
 package org.santavm.tms.service;
 
 import lombok.RequiredArgsConstructor;
+import org.santavm.tms.cache.NegativeCache;
 import org.santavm.tms.model.User;
 import org.santavm.tms.repository.UserRepository;
+import org.santavm.tms.util.UserNotFoundException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.Optional;
 
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository repository;
+    private final CacheManager cacheManager;
+    private final NegativeCache negativeCache;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Optional<User> userOptional = repository.findByEmail(email);
-        return userOptional.orElseThrow(
-                () -> new UsernameNotFoundException("user not found with email :" + email));
+        String missingKey = NegativeCache.email(email);
+        Optional<User> userOptional = negativeCache.isMissing(missingKey) ? Optional.empty() : repository.findByEmail(email);
+        if (userOptional.isEmpty()) {
+            negativeCache.markMissing(missingKey);
+            throw new UserNotFoundException("user not found with email :" + email);
+        }
+        return userOptional.get();
+    }
+
+    // called after successful login when the password hash has to be upgraded
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User fromDb = repository.findUserByEmail(user.getUsername()).orElseThrow(
+                () -> new UserNotFoundException("user not found with email :" + user.getUsername()));
+        fromDb.setPassword(newPassword);
+        User saved = repository.save(fromDb);
+
+        // otherwise the old hash from the cache would be upgraded again on every login
+        Cache users = cacheManager.getCache("users");
+        if (users != null) {
+            users.evict(user.getUsername());
+        }
+        return saved;
     }
 }
@@ -0,0 +1,171 @@
+package org.santavm.tms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.dto.CommentRow;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.dto.TaskRow;
+import org.santavm.tms.repository.CommentRepository;
+import org.santavm.tms.repository.TaskRepository;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Every matching task or comment written to the response as it is read from a forward-only cursor,
+ * instead of paging through the list endpoints with a count query per page. Only a fetch of rows
+ * and the write buffers are held in memory. A write to a disconnected client fails, which closes the cursor.
+ */
+@Service
+@Slf4j
+public class ExportService {
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_BYTES = 8192;
+    // a spreadsheet evaluates a cell starting with one of these as a formula
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv", "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType);
+            this.extension = extension;
+        }
+
+        public static Format of(String name) {
+            try {
+                return Format.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export format: " + name + ", use ndjson or csv");
+            }
+        }
+    }
+
+    // writes the rows, called by the response once the headers are sent
+    @FunctionalInterface
+    public interface Export {
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    private final TaskRepository taskRepository;
+    private final CommentRepository commentRepository;
+    private final ObjectWriter writer;
+
+    public ExportService(TaskRepository taskRepository, CommentRepository commentRepository, ObjectMapper objectMapper) {
+        this.taskRepository = taskRepository;
+        this.commentRepository = commentRepository;
+        this.writer = objectMapper.writer();
+    }
+
+    // gzipped when the client accepts it, errors after this point can only cut the body short
+    public ResponseEntity<StreamingResponseBody> respond(String name, Format format, String acceptEncoding, Export export) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains(GZIP);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.extension).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.body(out -> {
+            OutputStream body = gzip ? new GZIPOutputStream(out, BUFFER_BYTES) : out;
+            try {
+                long rows = export.writeTo(body);
+                log.debug("Exported {} {} rows", rows, name);
+            } catch (IOException e) {
+                log.debug("Export of {} stopped, the client is gone: {}", name, e.getMessage());
+                throw e;
+            }
+            if (body instanceof GZIPOutputStream gzipped) {
+                gzipped.finish();
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public long exportTasks(TaskCriteria criteria, Format format, OutputStream out) throws IOException {
+        try (Stream<TaskRow> rows = taskRepository.streamRows(criteria)) {
+            return this.write(rows, TaskRow.class, format, out);
+        }
+    }
+
+    // by task or by author, or all of them
+    @Transactional(readOnly = true)
+    public long exportComments(Long taskId, Long authorId, Format format, OutputStream out) throws IOException {
+        try (Stream<CommentRow> rows = taskId != null ? commentRepository.streamRowsByTaskId(taskId)
+                : authorId != null ? commentRepository.streamRowsByAuthorId(authorId)
+                : commentRepository.streamRows()) {
+            return this.write(rows, CommentRow.class, format, out);
+        }
+    }
+
+    private <R extends Record> long write(Stream<R> rows, Class<R> type, Format format, OutputStream out) throws IOException {
+        Writer text = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_BYTES);
+        RecordComponent[] columns = type.getRecordComponents();
+        if (format == Format.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) text.write(',');
+                text.write(columns[i].getName());
+            }
+            text.write('\n');
+        }
+        long count = 0;
+        Iterator<R> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            R row = iterator.next();
+            if (format == Format.NDJSON) {
+                text.write(writer.writeValueAsString(row));
+            } else {
+                this.writeCsv(row, columns, text);
+            }
+            text.write('\n');
+            count++;
+        }
+        text.flush();
+        return count;
+    }
+
+    private void writeCsv(Record row, RecordComponent[] columns, Writer text) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) text.write(',');
+            Object value;
+            try {
+                value = columns[i].getAccessor().invoke(row);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Can not read " + columns[i].getName() + " of " + row, e);
+            }
+            text.write(csv(value));
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String text = value instanceof Date date ? date.toInstant().toString() : value.toString();
+        if (!(value instanceof Number) && !text.isEmpty() && FORMULA_START.indexOf(text.charAt(0)) >= 0) {
+            // shown as text instead, as when typed into the spreadsheet
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -4,46 +4,241 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.cache.CacheInvalidationBus;
+import org.santavm.tms.dto.TokenVersion;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.User;
+import org.santavm.tms.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @Slf4j
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secret;
+    public static final long TOKEN_TTL_MILLIS = 1000 * 60 * 60 * 24;  //24 hours
+
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String VERSION_CLAIM = "ver";
+    // "token_version:<userId>:<version>" on the invalidation bus
+    private static final String TOKEN_VERSION_DEPENDENCY = "token_version:";
+
+    // key and parser are immutable and thread-safe, so build them only once
+    private final SecretKey signKey;
+    private final JwtParser parser;
+
+    // already verified tokens: SHA-256 digest of the token -> claims
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final int verifiedCacheMaxSize;
+    private final ReentrantLock purgeLock = new ReentrantLock();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    // userId -> lowest token version still accepted, only users that ever invalidated their tokens are here
+    private final Map<Long, Integer> tokenVersions = new ConcurrentHashMap<>();
+    private final UserRepository userRepository;
+    private final TokenRevocationService revocationService;
+    private final CacheInvalidationBus invalidationBus;
+
+    public JwtService(@Value("${app.jwt.secret}") String secret,
+                      @Value("${app.jwt.verified-cache.max-size:10000}") int verifiedCacheMaxSize,
+                      UserRepository userRepository,
+                      TokenRevocationService revocationService,
+                      CacheInvalidationBus invalidationBus) {
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parser().verifyWith(signKey).build();
+        this.verifiedCacheMaxSize = verifiedCacheMaxSize;
+        this.userRepository = userRepository;
+        this.revocationService = revocationService;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.onDependents(TOKEN_VERSION_DEPENDENCY, this::receiveTokenVersion);
+    }
+
+    // versions bumped on other nodes, null when messages may have been lost
+    private void receiveTokenVersion(String userVersion) {
+        if (userVersion == null) {
+            loadTokenVersions();
+            return;
+        }
+        int separator = userVersion.indexOf(':');
+        tokenVersions.merge(Long.valueOf(userVersion.substring(0, separator)),
+                Integer.valueOf(userVersion.substring(separator + 1)), Math::max);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadTokenVersions() {
+        try {
+            for (TokenVersion tokenVersion : userRepository.findTokenVersions()) {
+                tokenVersions.merge(tokenVersion.userId(), tokenVersion.version(), Math::max);
+            }
+            log.info("Token versions loaded for {} user(s)", tokenVersions.size());
+        } catch (DataAccessException e) {
+            log.warn("Token versions were not loaded: " + e.getMessage());
+        }
+    }
+
     public String extractUserEmail(String token){
         return extractAllClaims(token).getSubject();
     }
 
+    /**
+     * Builds the principal straight from the verified claims.
+     * Returns null for tokens issued without user claims, those must be resolved through UserDetailsService.
+     */
+    public AuthUser extractPrincipal(String token){
+        Claims claims = extractAllClaims(token);
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Integer version = claims.get(VERSION_CLAIM, Integer.class);
+        if (userId == null || role == null || version == null) {
+            return null;
+        }
+        return new AuthUser(userId, claims.getSubject(), User.Role.valueOf(role), version);
+    }
+
+    /**
+     * All tokens of the user issued with a version lower than the given one are rejected from now on.
+     * Inside a transaction that is once it commits: the version is stored with it, a rolled back one
+     * would lock the user out on this node. Other nodes are told over the invalidation bus.
+     */
+    public void invalidateTokens(Long userId, int newVersion){
+        Runnable invalidation = () -> {
+            tokenVersions.merge(userId, newVersion, Math::max);
+            invalidationBus.publishDependents(TOKEN_VERSION_DEPENDENCY + userId + ":" + newVersion);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    // used for deleted users, the revocation is persisted so it survives restarts
+    public void invalidateAllTokens(Long userId){
+        invalidateTokens(userId, Integer.MAX_VALUE);
+        revocationService.revokeUser(userId);
+    }
+
+    // logout: only this token is revoked until its expiration
+    public void revokeToken(String token){
+        String digest = digest(token);
+        Claims claims = verifiedClaims(token, digest);
+        Date expiresAt = claims.getExpiration() != null
+                ? claims.getExpiration()
+                : new Date(System.currentTimeMillis() + TOKEN_TTL_MILLIS);
+        revocationService.revokeToken(digest, expiresAt);
+    }
+
+    // revocation and token version are checked here, whichever way the principal is resolved afterwards
     private Claims extractAllClaims(String token){
+        String digest = digest(token);
+        Claims claims = verifiedClaims(token, digest);
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        if (revocationService.isRevoked(digest, userId)) {
+            throw new JwtException("JWT has been revoked");
+        }
+        // a token without "ver" predates every invalidation
+        Integer version = claims.get(VERSION_CLAIM, Integer.class);
+        if (userId != null && (version == null ? 0 : version) < tokenVersions.getOrDefault(userId, 0)) {
+            throw new JwtException("JWT has been invalidated, please login again");
+        }
+        return claims;
+    }
+
+    private Claims verifiedClaims(String token, String digest){
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified != null) {
+            if (verified.expiresAt() > System.currentTimeMillis()) {
+                cacheHits.increment();
+                return verified.claims();
+            }
+            // expired: drop it and let the parser report ExpiredJwtException
+            verifiedTokens.remove(digest, verified);
+        }
+        cacheMisses.increment();
+
+        Claims claims;
         try {
-            return Jwts.parser()
-                    .verifyWith(getSignKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (JwtException e) {
             log.error("JWT exception" + e.getMessage());
             throw e;
         }
+
+        // tokens without "exp" are never cached
+        if (verifiedCacheMaxSize > 0 && claims.getExpiration() != null) {
+            verifiedTokens.put(digest, new VerifiedToken(claims, claims.getExpiration().getTime()));
+            if (verifiedTokens.size() > verifiedCacheMaxSize) {
+                purgeVerifiedTokens();
+            }
+        }
+        return claims;
+    }
+
+    // first drops expired tokens, then arbitrary ones until the cache fits its bound
+    private void purgeVerifiedTokens() {
+        if (!purgeLock.tryLock()) return;  // somebody else is already purging
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<VerifiedToken> iterator = verifiedTokens.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiresAt() <= now) {
+                    iterator.remove();
+                    cacheEvictions.increment();
+                }
+            }
+            iterator = verifiedTokens.values().iterator();
+            while (verifiedTokens.size() > verifiedCacheMaxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                cacheEvictions.increment();
+            }
+        } finally {
+            purgeLock.unlock();
+        }
     }
 
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // raw bearer tokens are not kept in memory, only their digests
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    public String generateToken(String email) {
+    public String generateToken(User user) {
         return Jwts.builder()
-                .subject(email)
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(VERSION_CLAIM, user.getTokenVersion())
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))  //24 hours
-                .signWith(getSignKey())
+                .expiration(new Date(System.currentTimeMillis() + TOKEN_TTL_MILLIS))
+                .signWith(signKey)
                 .compact();
     }
 
@@ -53,7 +248,7 @@ public class JwtService {
             subToken = token.substring(7);
         }
         try {
-            Jwts.parser().verifyWith(getSignKey()).build().parseSignedClaims(subToken);
+            extractAllClaims(subToken);
             return true;
         } catch (ExpiredJwtException ex) {
             log.error("JWT expired", ex);
@@ -66,5 +261,16 @@ public class JwtService {
         return false;
     }
 
+    public Map<String, Object> getVerifiedCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", verifiedTokens.size());
+        stats.put("maxSize", verifiedCacheMaxSize);
+        stats.put("hits", cacheHits.sum());
+        stats.put("misses", cacheMisses.sum());
+        stats.put("evictions", cacheEvictions.sum());
+        return stats;
+    }
 
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
 }
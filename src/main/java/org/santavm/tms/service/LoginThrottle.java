@@ -0,0 +1,70 @@
+package org.santavm.tms.service;
+
+import org.santavm.tms.util.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sliding window limit of login attempts per email, every attempt costs a password hash
+@Component
+public class LoginThrottle {
+    private static final int MAX_TRACKED_EMAILS = 100_000;
+
+    private final int maxAttempts;
+    private final long windowMillis;
+    private final Map<String, Deque<Long>> attempts = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+
+    public LoginThrottle(@Value("${app.security.login-throttle.max-attempts:10}") int maxAttempts,
+                         @Value("${app.security.login-throttle.window:1m}") Duration window) {
+        this.maxAttempts = maxAttempts;
+        this.windowMillis = window.toMillis();
+    }
+
+    public void acquire(String email) {
+        if (email == null) return;
+        long now = System.currentTimeMillis();
+        Deque<Long> timestamps = attempts.computeIfAbsent(email.toLowerCase(Locale.ROOT), key -> new ArrayDeque<>());
+        synchronized (timestamps) {
+            dropOutdated(timestamps, now);
+            if (timestamps.size() >= maxAttempts) {
+                throttled.increment();
+                throw new TooManyRequestsException("Too many login attempts, please try again later");
+            }
+            timestamps.addLast(now);
+        }
+        if (attempts.size() > MAX_TRACKED_EMAILS) {
+            purge(now);
+        }
+    }
+
+    private void dropOutdated(Deque<Long> timestamps, long now) {
+        while (!timestamps.isEmpty() && timestamps.peekFirst() <= now - windowMillis) {
+            timestamps.pollFirst();
+        }
+    }
+
+    private void purge(long now) {
+        attempts.values().removeIf(timestamps -> {
+            synchronized (timestamps) {
+                dropOutdated(timestamps, now);
+                return timestamps.isEmpty();
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedEmails", attempts.size());
+        stats.put("throttled", throttled.sum());
+        return stats;
+    }
+}
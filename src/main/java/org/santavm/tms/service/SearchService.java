@@ -0,0 +1,240 @@
+package org.santavm.tms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.cache.CacheInvalidationBus;
+import org.santavm.tms.dto.CommentRow;
+import org.santavm.tms.dto.SearchHit;
+import org.santavm.tms.dto.SearchPage;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.dto.TaskRow;
+import org.santavm.tms.repository.CommentRepository;
+import org.santavm.tms.repository.TaskRepository;
+import org.santavm.tms.util.SearchIndex;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over tasks and comments, served from a SearchIndex in memory.
+ * The write paths report their changes here, they reach the index once their transaction commits.
+ * The index is built from the database in the background after startup, changes made meanwhile
+ * are recorded and replayed on the new index before it replaces the old one.
+ * Changes are sent to the other instances over the CacheInvalidationBus as "search:task:1", "search:comment:1"
+ * or "search:user:1", the receiving side reads the document anew. Anything missed there is caught up
+ * by a rebuild, see app.search.rebuild-interval.
+ */
+@Service
+@Slf4j
+public class SearchService implements DisposableBean {
+    public static final int MAX_RESULTS = 1000;
+    private static final String SEARCH_DEPENDENCY = "search:";
+
+    private final TaskRepository taskRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate readOnly;
+    private final boolean rebuildOnStartup;
+    private final ScheduledExecutorService scheduler;
+    private final Duration rebuildInterval;
+    private final CacheInvalidationBus invalidationBus;
+
+    private volatile SearchIndex index = new SearchIndex();
+    // the index holds every task and comment once a rebuild has finished
+    private volatile boolean complete;
+    // changes applied while a rebuild reads the database, null when none runs
+    private List<Consumer<SearchIndex>> pending;
+    private final Map<String, Object> lastRebuild = new LinkedHashMap<>(Map.of("state", "NOT_RUN"));
+
+    public SearchService(TaskRepository taskRepository, CommentRepository commentRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.search.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                         @Value("${app.search.rebuild-interval:0s}") Duration rebuildInterval,
+                         CacheInvalidationBus invalidationBus) {
+        this.taskRepository = taskRepository;
+        this.commentRepository = commentRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.rebuildInterval = rebuildInterval.isZero() || rebuildInterval.isNegative() ? null : rebuildInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.invalidationBus = invalidationBus;
+        invalidationBus.onDependents(SEARCH_DEPENDENCY, this::receiveChange);
+    }
+
+    // requests are served meanwhile, from what the index already has
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        if (rebuildOnStartup) {
+            scheduler.execute(this::rebuild);
+        }
+        if (rebuildInterval != null) {
+            long millis = rebuildInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::rebuild, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public SearchPage search(String query, SearchIndex.Kind kind, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        if (page < 0 || size < 1 || (long) (page + 1) * size > MAX_RESULTS) {
+            throw new IllegalArgumentException("Only the first " + MAX_RESULTS + " results can be paged, page: "
+                    + page + ", size: " + size);
+        }
+        SearchIndex.Result result = index.search(query, kind, page * size, size);
+        List<SearchHit> hits = result.hits().stream()
+                .map(hit -> new SearchHit(hit.kind().name().toLowerCase(Locale.ROOT), hit.id(), hit.taskId(),
+                        hit.label(), hit.score()))
+                .toList();
+        return new SearchPage(hits, result.total(), complete);
+    }
+
+    public void indexTask(Long id, Long authorId, String title, String description) {
+        this.afterCommit(index -> index.putTask(id, authorId, title, description), "task:" + id);
+    }
+
+    public void indexComment(Long id, Long taskId, Long authorId, String content) {
+        this.afterCommit(index -> index.putComment(id, taskId, authorId, content), "comment:" + id);
+    }
+
+    public void removeTask(Long id) {
+        this.afterCommit(index -> index.removeTask(id), "task:" + id);
+    }
+
+    public void removeComment(Long id) {
+        this.afterCommit(index -> index.removeComment(id), "comment:" + id);
+    }
+
+    public void removeUser(Long userId, Collection<Long> authoredTaskIds) {
+        List<Long> taskIds = List.copyOf(authoredTaskIds);
+        this.afterCommit(index -> index.removeAuthor(userId, taskIds), "user:" + userId);
+    }
+
+    // a rolled back change never reaches the index, nor the other instances
+    private void afterCommit(Consumer<SearchIndex> change, String document) {
+        Runnable commit = () -> {
+            apply(change);
+            invalidationBus.publishDependents(SEARCH_DEPENDENCY + document);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    commit.run();
+                }
+            });
+        } else {
+            commit.run();
+        }
+    }
+
+    // a change made on another instance, the document is read as it is now; null when messages may have been lost
+    void receiveChange(String document) {
+        if (document == null) {
+            scheduler.execute(this::rebuild);
+            return;
+        }
+        String[] parts = document.split(":", 2);
+        long id = Long.parseLong(parts[1]);
+        switch (parts[0]) {
+            case "task" -> {
+                Optional<TaskRow> row = readOnly.execute(status -> taskRepository.findRowsByIdIn(List.of(id)))
+                        .stream().findFirst();
+                this.apply(row.<Consumer<SearchIndex>>map(task ->
+                                index -> index.putTask(id, task.authorId(), task.title(), task.description()))
+                        .orElse(index -> index.removeTask(id)));
+            }
+            case "comment" -> {
+                Optional<CommentRow> row = readOnly.execute(status -> commentRepository.findRowById(id));
+                this.apply(row.<Consumer<SearchIndex>>map(comment ->
+                                index -> index.putComment(id, comment.taskId(), comment.authorId(), comment.content()))
+                        .orElse(index -> index.removeComment(id)));
+            }
+            // the tasks of the user are the ones indexed as the user's
+            case "user" -> this.apply(index -> index.removeAuthor(id, List.of()));
+            default -> throw new IllegalArgumentException("Unknown search change: " + document);
+        }
+    }
+
+    private synchronized void apply(Consumer<SearchIndex> change) {
+        change.accept(index);
+        if (pending != null) pending.add(change);
+    }
+
+    // reads every task and comment into a new index, false if another rebuild is running
+    public boolean rebuild() {
+        synchronized (this) {
+            if (pending != null) return false;
+            pending = new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            SearchIndex rebuilt = new SearchIndex();
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<TaskRow> rows = taskRepository.streamRows(TaskCriteria.of(null, null, null, null))) {
+                    rows.forEach(row -> rebuilt.putTask(row.id(), row.authorId(), row.title(), row.description()));
+                }
+                try (Stream<CommentRow> rows = commentRepository.streamRows()) {
+                    rows.forEach(row -> rebuilt.putComment(row.id(), row.taskId(), row.authorId(), row.content()));
+                }
+            });
+            synchronized (this) {
+                // replayed changes may repeat what the rebuild has read, puts and removes by id can be repeated
+                pending.forEach(change -> change.accept(rebuilt));
+                result.put("replayedChanges", pending.size());
+                index = rebuilt;
+                complete = true;
+            }
+            result.put("state", "DONE");
+            result.putAll(rebuilt.getStats());
+        } catch (RuntimeException e) {
+            // search keeps serving the old index
+            log.warn("Search index rebuild failed: " + e.getMessage());
+            result.put("state", "FAILED");
+            result.put("error", e.getMessage());
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+        result.put("durationMillis", (System.nanoTime() - start) / 1_000_000);
+        log.info("Search index rebuild finished: {}", result);
+        synchronized (lastRebuild) {
+            lastRebuild.clear();
+            lastRebuild.putAll(result);
+        }
+        return "DONE".equals(result.get("state"));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(index.getStats());
+        stats.put("complete", complete);
+        synchronized (lastRebuild) {
+            stats.put("lastRebuild", new LinkedHashMap<>(lastRebuild));
+        }
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
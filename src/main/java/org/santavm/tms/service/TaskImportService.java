@@ -0,0 +1,298 @@
+package org.santavm.tms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.santavm.tms.cache.CacheInvalidator;
+import org.santavm.tms.cache.NegativeCache;
+import org.santavm.tms.cache.QueryCache;
+import org.santavm.tms.dto.ImportReport;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.UserPrincipal;
+import org.santavm.tms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Creates tasks from an NDJSON body, one TaskReq per line, without going through the entity per task.
+ * Lines are parsed as they arrive and inserted with JDBC batches, a chunk of them per transaction,
+ * so a failed line or chunk is reported and the import goes on. Ids come from the generator of Task,
+ * its pooled task_seq blocks are shared with tasks saved through JPA. A line is held in memory up to
+ * app.import.max-line-length characters, a longer one is skipped to its end and reported.
+ */
+@Service
+@Slf4j
+public class TaskImportService {
+    private static final String INSERT = "INSERT INTO task (id, title, description, status, priority, author_id, "
+            + "executor_id, created_at, comment_count, last_activity_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader reader;
+    private final Validator validator;
+    private final QueryCache queryCache;
+    private final NegativeCache negativeCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final SearchService searchService;
+    private final int chunkSize;
+    private final int maxLineLength;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TaskImportService(UserRepository userRepository, JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate, ObjectMapper objectMapper, Validator validator,
+                             QueryCache queryCache, NegativeCache negativeCache, CacheInvalidator cacheInvalidator,
+                             SearchService searchService, @Value("${app.import.chunk-size:1000}") int chunkSize,
+                             @Value("${app.import.max-line-length:65536}") int maxLineLength) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("app.import.chunk-size must be positive: " + chunkSize);
+        }
+        if (maxLineLength < 1) {
+            throw new IllegalArgumentException("app.import.max-line-length must be positive: " + maxLineLength);
+        }
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reader = objectMapper.readerFor(TaskReq.class);
+        this.validator = validator;
+        this.queryCache = queryCache;
+        this.negativeCache = negativeCache;
+        this.cacheInvalidator = cacheInvalidator;
+        this.searchService = searchService;
+        this.chunkSize = chunkSize;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public ImportReport importTasks(InputStream body, Authentication auth) throws IOException {
+        Long authorId = this.extractUserId(auth);
+        Report report = new Report();
+        // executors found by an earlier chunk are not looked up again
+        Set<Long> knownUsers = new HashSet<>();
+        knownUsers.add(authorId);
+
+        LineReader lines = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8), maxLineLength);
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        long number = 0;
+        String text;
+        while ((text = lines.next()) != null) {
+            number++;
+            if (lines.tooLong()) {
+                report.fail(number, "Line longer than " + maxLineLength + " characters");
+                continue;
+            }
+            if (text.isBlank()) continue;
+            TaskReq taskReq;
+            try {
+                taskReq = reader.readValue(text);
+            } catch (JsonProcessingException e) {
+                report.fail(number, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            String violations = this.validate(taskReq);
+            if (violations != null) {
+                report.fail(number, violations);
+                continue;
+            }
+            chunk.add(new Line(number, taskReq));
+            if (chunk.size() == chunkSize) {
+                this.insert(chunk, authorId, knownUsers, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            this.insert(chunk, authorId, knownUsers, report);
+        }
+        return report.toResponse();
+    }
+
+    private String validate(TaskReq taskReq) {
+        Set<ConstraintViolation<TaskReq>> violations = validator.validate(taskReq);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void insert(List<Line> chunk, Long authorId, Set<Long> knownUsers, Report report) {
+        Set<Long> unknown = chunk.stream()
+                .map(line -> line.task().getExecutorId())
+                .filter(id -> id != null && !knownUsers.contains(id))
+                .collect(Collectors.toSet());
+        if (!unknown.isEmpty()) {
+            knownUsers.addAll(userRepository.findExistingIds(unknown));
+        }
+
+        List<Line> valid = new ArrayList<>(chunk.size());
+        for (Line line : chunk) {
+            Long executorId = line.task().getExecutorId();
+            if (executorId != null && !knownUsers.contains(executorId)) {
+                report.fail(line.number(), "There is no User with executorId: " + executorId);
+            } else {
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> this.insertChunk(valid, authorId));
+            report.imported += valid.size();
+        } catch (DataAccessException e) {
+            // e.g. an executor deleted since it was checked, the whole chunk is rolled back
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Import chunk of lines {}-{} rolled back: {}",
+                    valid.get(0).number(), valid.get(valid.size() - 1).number(), cause);
+            valid.forEach(line -> report.fail(line.number(), "Chunk rolled back: " + cause));
+        }
+    }
+
+    private void insertChunk(List<Line> chunk, Long authorId) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = session.getFactory().unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Task.class).getIdentifierGenerator();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        List<Long> ids = new ArrayList<>(chunk.size());
+        Set<String> dimensions = new HashSet<>(List.of(QueryCache.ALL_TASKS, QueryCache.author(authorId)));
+        Set<Long> executors = new HashSet<>();
+        for (Line line : chunk) {
+            TaskReq task = line.task();
+            Long id = (Long) generator.generate(session, null);
+            ids.add(id);
+            rows.add(new Object[]{id, task.getTitle(), task.getDescription(), task.getStatus().name(),
+                    task.getPriority().name(), authorId, task.getExecutorId(), now, now});
+            searchService.indexTask(id, authorId, task.getTitle(), task.getDescription());
+            dimensions.add(QueryCache.status(task.getStatus()));
+            dimensions.add(QueryCache.priority(task.getPriority()));
+            if (task.getExecutorId() != null) {
+                executors.add(task.getExecutorId());
+                dimensions.add(QueryCache.executor(task.getExecutorId()));
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+
+        // deferred until the chunk commits, as for a single created task
+        ids.forEach(id -> negativeCache.forget(NegativeCache.task(id)));
+        queryCache.bump(dimensions);
+        cacheInvalidator.evict("user_resp", authorId);
+        executors.forEach(id -> cacheInvalidator.evict("user_resp", id));
+    }
+
+    private Long extractUserId(Authentication auth) {
+        UserPrincipal user = null;
+        if (auth instanceof UsernamePasswordAuthenticationToken token) {
+            user = (UserPrincipal) token.getPrincipal();
+        }
+        assert user != null;
+        return user.getId();
+    }
+
+    private record Line(long number, TaskReq task) {
+    }
+
+    // Lines ended by \n or \r\n, as BufferedReader.readLine but keeping no more than maxLength + 1 characters
+    private static class LineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        // the next line without its terminator, null at the end of the body
+        String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(in.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) break;
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') position++;
+                this.append(start, position);
+                if (position < limit) {
+                    position++;
+                    break;
+                }
+            }
+            if (!read) return null;
+            if (!tooLong && !line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            tooLong |= line.length() > maxLength;
+            return tooLong ? "" : line.toString();
+        }
+
+        // whether the last line was cut, its characters past the limit were skipped
+        boolean tooLong() {
+            return tooLong;
+        }
+
+        private void append(int start, int end) {
+            // one more than the limit, the last one may be the \r of \r\n
+            int room = maxLength + 1 - line.length();
+            if (end - start > room) {
+                line.append(buffer, start, room);
+                tooLong = true;
+            } else {
+                line.append(buffer, start, end - start);
+            }
+        }
+    }
+
+    private static class Report {
+        private long imported;
+        private long failed;
+        private final List<ImportReport.LineError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < ImportReport.MAX_ERRORS) {
+                errors.add(new ImportReport.LineError(line, message));
+            }
+        }
+
+        ImportReport toResponse() {
+            // lines of a rolled back chunk are reported after the ones that failed before it
+            errors.sort(Comparator.comparingLong(ImportReport.LineError::line));
+            return new ImportReport(imported, failed, List.copyOf(errors));
+        }
+    }
+}
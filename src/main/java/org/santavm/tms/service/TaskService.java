@@ -5,16 +5,29 @@ import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.Hibernate;
 import org.hibernate.Session;
+import org.santavm.tms.cache.CacheDependencyIndex;
+import org.santavm.tms.cache.CacheInvalidator;
+import org.santavm.tms.cache.NegativeCache;
+import org.santavm.tms.cache.QueryCache;
+import org.santavm.tms.dto.CursorPage;
+import org.santavm.tms.dto.TaskBulkUpdate;
+import org.santavm.tms.dto.TaskCriteria;
 import org.santavm.tms.dto.TaskReq;
 import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.dto.TaskRow;
 import org.santavm.tms.model.Task;
 import org.santavm.tms.model.User;
+import org.santavm.tms.model.UserPrincipal;
 import org.santavm.tms.repository.TaskRepository;
+import org.santavm.tms.repository.TaskRepositoryCustom;
 import org.santavm.tms.repository.UserRepository;
+import org.santavm.tms.util.Cursor;
 import org.santavm.tms.util.CustomPermissionException;
+import org.santavm.tms.util.NotFoundException;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -32,13 +45,21 @@ import java.util.*;
 public class TaskService {
     private final TaskRepository repository;
     private final UserRepository userRepository;
+    private final CacheDependencyIndex dependencyIndex;
+    private final CacheInvalidator cacheInvalidator;
+    private final NegativeCache negativeCache;
+    private final QueryCache queryCache;
+    private final SearchService searchService;
 
     public List<TaskResp> findAllByAuthorId(Long authorId, Pageable pageable){
-        if( !userRepository.existsById(authorId) ){
-            throw new NoSuchElementException("There is no User with id: " + authorId);
-        }
-        List<Task> taskList = repository.findAllByAuthorId(authorId, pageable);
-        return taskList.stream().map(this::toResponse).toList();
+        return queryCache.page(QueryCache.TASK_PAGES, "by-author:" + authorId, pageable,
+                List.of(QueryCache.author(authorId), QueryCache.USERS), () -> {
+            if( !userRepository.existsById(authorId) ){
+                throw new NotFoundException("There is no User with id: " + authorId);
+            }
+            List<TaskRow> rows = repository.findRowsByAuthorId(authorId, pageable);
+            return rows.stream().map(this::toResponse).toList();
+        });
     }
 
     @Transactional
@@ -58,14 +79,19 @@ public class TaskService {
 
         if(executorId != null){
             executor = userRepository.findById(executorId).orElseThrow(
-                    () -> new NoSuchElementException("ERROR: There is no User with executorId: " + executorId));
+                    () -> new NotFoundException("ERROR: There is no User with executorId: " + executorId));
             newTask.setExecutor(executor);
         }
 
         newTask.setAuthor(authorUser);
         newTask.setCreatedAt(new Date());
+        newTask.setLastActivityAt(newTask.getCreatedAt());
 
-        return repository.save(newTask);
+        Task saved = repository.save(newTask);
+        negativeCache.forget(NegativeCache.task(saved.getId()));
+        queryCache.bump(QueryCache.listing(saved));
+        searchService.indexTask(saved.getId(), userId, saved.getTitle(), saved.getDescription());
+        return saved;
     }
 
     private Task toTask(TaskReq taskReq) {
@@ -107,17 +133,69 @@ public class TaskService {
         } else {
             response.setExecutor("id: " + task.getExecutorId());
         }
-        if (Hibernate.isInitialized(task.getComments())) {
-            response.setComments(task.getComments().size() + " comment(s)");
+        response.setComments(task.getCommentCount() + " comment(s)");
+        response.setLastActivityAt( this.toLocalDateTime( task.getLastActivityAt() ) );
+        return response;
+    }
+
+    // list items are built from projections, so list endpoints load no managed entities
+    private TaskResp toResponse(TaskRow row) {
+        TaskResp response = new TaskResp();
+        response.setId(row.id());
+        response.setTitle(row.title());
+        response.setDescription(row.description());
+        response.setStatus(row.status());
+        response.setPriority(row.priority());
+        response.setCreatedAt( this.toLocalDateTime( row.createdAt() ) );
+        response.setUpdatedAt( this.toLocalDateTime( row.updatedAt() ) );
+        response.setAuthor("id: " + row.authorId()
+                + ", name: " + row.authorFirstName()
+                + ", surname: " + row.authorLastName());
+        if (row.executorId() != null) {
+            response.setExecutor("id: " + row.executorId()
+                    + ", name: " + row.executorFirstName()
+                    + ", surname: " + row.executorLastName());
         } else {
-            response.setComments("undefined");
+            response.setExecutor("no executor assigned");
         }
+        response.setComments(row.commentCount() + " comment(s)");
+        response.setLastActivityAt( this.toLocalDateTime( row.lastActivityAt() ) );
         return response;
     }
 
     public List<TaskResp> findByCriteria(Long authorId, Long executorId, Task.Status status, Task.Priority priority, Pageable pageable) {
-        List<Task> taskList = repository.findByCriteria(authorId, executorId, status, priority, pageable);
-        return taskList.stream().map(this::toResponse).toList();
+        return this.findByCriteria(TaskCriteria.of(authorId, executorId, status, priority), pageable);
+    }
+
+    public List<TaskResp> findByCriteria(TaskCriteria criteria, Pageable pageable) {
+        TaskRepositoryCustom.checkSort(pageable.getSort());
+        // a task matching all the filters bumps every one of them when changed, so any of them would do,
+        // for a list of statuses or priorities it bumps the one it has
+        List<String> dimensions = new ArrayList<>();
+        if (criteria.authorId() != null) dimensions.add(QueryCache.author(criteria.authorId()));
+        if (criteria.executorId() != null) dimensions.add(QueryCache.executor(criteria.executorId()));
+        criteria.statuses().forEach(status -> dimensions.add(QueryCache.status(status)));
+        criteria.priorities().forEach(priority -> dimensions.add(QueryCache.priority(priority)));
+        // date ranges alone: every task write bumps ALL_TASKS
+        if (dimensions.isEmpty()) dimensions.add(QueryCache.ALL_TASKS);
+        // names of the author and the executor are embedded
+        dimensions.add(QueryCache.USERS);
+        return queryCache.page(QueryCache.TASK_PAGES, "criteria:" + criteria.key(), pageable, dimensions,
+                () -> this.loadByCriteria(criteria, pageable));
+    }
+
+    // keyset pagination, a deep page costs the same as the first one
+    public CursorPage<TaskResp> scroll(TaskCriteria criteria, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        List<TaskRow> rows = repository.scrollRows(criteria, after.timestamp(), after.id(), CursorPage.limit(size).getPageSize());
+        return CursorPage.of(rows, size, row -> Cursor.after(row.createdAt(), row.id()), this::toResponse);
+    }
+
+    // bypasses the page cache, used by findByCriteria and by the warmup of the query path
+    public List<TaskResp> loadByCriteria(TaskCriteria criteria, Pageable pageable) {
+        TaskRepositoryCustom.checkSort(pageable.getSort());
+        List<TaskRow> rows = repository.findRows(criteria, pageable);
+        return rows.stream().map(this::toResponse).toList();
     }
 
     @Caching(evict = {
@@ -127,7 +205,7 @@ public class TaskService {
     })
     public Task deleteTask(Long id, Authentication auth) {
         Task task = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("There is no Task with id: "+id));
+                .orElseThrow(() -> new NotFoundException("There is no Task with id: "+id));
 
         Long authorId = task.getAuthorId();
 
@@ -141,18 +219,22 @@ public class TaskService {
         // update Task DB
         repository.deleteById(id);
 
+        // comment authors list the comments of this task
+        cacheInvalidator.evictDependents(CacheDependencyIndex.task(id));
+        Set<String> dimensions = QueryCache.listing(task);
+        dimensions.add(QueryCache.commentsOfTask(id));
+        queryCache.bump(dimensions);
+        searchService.removeTask(id);
+
         return task;    // for caching purpose only
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "tasks", key = "#id"),
-            @CacheEvict(value = "user_resp", allEntries = true)
-    })
+    @CacheEvict(value = "tasks", key = "#id")
     public Long updateTask(Long id, TaskReq taskReq, Authentication auth) {
 
         Task fromDb = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("There is no Task with id: " + id) );
+                .orElseThrow(() -> new NotFoundException("There is no Task with id: " + id) );
         Task newTask = this.toTask(taskReq); // no executor inside
 
         Long authorId = fromDb.getAuthorId();
@@ -163,6 +245,8 @@ public class TaskService {
         boolean isExecutor = userId.equals(executorId);
 
         HashSet<String> fieldsChanged = fromDb.fieldsChanged(newTask);
+        // pages listing the task before the update
+        Set<String> dimensions = QueryCache.listing(fromDb);
 
         // Author can update any field except "id", "authorId", "createdAt" and "updatedAt"
         // Executor can update only "status" field
@@ -172,7 +256,12 @@ public class TaskService {
                 fromDb.setStatus(newTask.getStatus());
                 fromDb.setUpdatedAt(new Date());
 
-                return repository.save(fromDb).getId();
+                // status is not a part of UserResp, so there is nothing more to evict
+                dimensions.add(QueryCache.status(fromDb.getStatus()));
+                queryCache.bump(dimensions);
+                Long savedId = repository.save(fromDb).getId();
+                repository.touch(id, fromDb.getUpdatedAt());
+                return savedId;
             } else {
                 throw new CustomPermissionException("You have permission to update ONLY \"status\" for this task: " + id);
             }
@@ -185,7 +274,7 @@ public class TaskService {
 
             if ( newExecutorId != null ) {
                 newExecutor = userRepository.findById(newExecutorId).orElseThrow(
-                        () -> new NoSuchElementException("There is no Executor User with id: " + newExecutorId) );
+                        () -> new NotFoundException("There is no Executor User with id: " + newExecutorId) );
 
                 fromDb.setExecutor(newExecutor);
             } else {  // Executor deleted
@@ -200,43 +289,135 @@ public class TaskService {
 
         fromDb.setUpdatedAt(new Date());
 
-        return repository.save(fromDb).getId();
+        // UserResp of the author and the old executor lists this task, the new executor will list it now
+        cacheInvalidator.evictDependents(CacheDependencyIndex.task(id));
+        cacheInvalidator.evict("user_resp", authorId);
+        cacheInvalidator.evict("user_resp", executorId);
+        cacheInvalidator.evict("user_resp", newExecutorId);
+        // and the pages listing it now, comment pages embed the title
+        dimensions.addAll(QueryCache.listing(fromDb));
+        dimensions.add(QueryCache.commentsOfTask(id));
+        queryCache.bump(dimensions);
+        if (fieldsChanged.contains("title") || fieldsChanged.contains("description")) {
+            searchService.indexTask(id, authorId, fromDb.getTitle(), fromDb.getDescription());
+        }
+
+        Long savedId = repository.save(fromDb).getId();
+        repository.touch(id, fromDb.getUpdatedAt());
+        return savedId;
+    }
+
+    // One statement for all matching tasks instead of an updateTask per task, with the same permissions:
+    // the author may change anything, the executor only the status. Returns the ids of the changed tasks.
+    @Transactional
+    public List<Long> updateAll(TaskBulkUpdate update, Authentication auth) {
+        TaskBulkUpdate.Change change = update.set();
+        if (change.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to change, set status, priority or executorId");
+        }
+        Long newExecutorId = change.executorId();
+        if (newExecutorId != null && !userRepository.existsById(newExecutorId)) {
+            throw new NotFoundException("There is no Executor User with id: " + newExecutorId);
+        }
+        Long userId = this.extractUserId(auth);
+
+        List<TaskRepositoryCustom.Updated> updated = repository.updateAll(update.filter().criteria(), userId,
+                change.isStatusOnly(), change, new Date());
+        if (updated.isEmpty()) return List.of();
+
+        // pages listing the tasks before the update and the ones listing them now
+        Set<String> dimensions = new HashSet<>();
+        dimensions.add(QueryCache.ALL_TASKS);
+        if (change.status() != null) dimensions.add(QueryCache.status(change.status()));
+        if (change.priority() != null) dimensions.add(QueryCache.priority(change.priority()));
+        if (newExecutorId != null) {
+            dimensions.add(QueryCache.executor(newExecutorId));
+            cacheInvalidator.evict("user_resp", newExecutorId);
+        }
+        for (TaskRepositoryCustom.Updated task : updated) {
+            cacheInvalidator.evict("tasks", task.id());
+            dimensions.add(QueryCache.author(task.authorId()));
+            if (task.executorId() != null) dimensions.add(QueryCache.executor(task.executorId()));
+            dimensions.add(QueryCache.status(task.status()));
+            dimensions.add(QueryCache.priority(task.priority()));
+            // status and priority are not a part of UserResp, the executor is
+            if (newExecutorId != null) {
+                cacheInvalidator.evict("user_resp", task.authorId());
+                cacheInvalidator.evict("user_resp", task.executorId());
+            }
+        }
+        queryCache.bump(dimensions);
+        return updated.stream().map(TaskRepositoryCustom.Updated::id).toList();
     }
 
-    private Long extractUserId( Authentication auth){
-        User user = null;
+    private Long extractUserId(Authentication auth) {
+        UserPrincipal user = null;
         if (auth instanceof UsernamePasswordAuthenticationToken token) {
-            user = (User) token.getPrincipal();
+            user = (UserPrincipal) token.getPrincipal();
         }
         assert user != null;
         return user.getId();
     }
 
     public List<TaskResp> findAllByExecutorId(Long executorId, Pageable pageable) {
-        if( !userRepository.existsById(executorId) ){
-            throw new NoSuchElementException("There is no User with id: " + executorId);
-        }
-        List<Task> taskList = repository.findAllByExecutorId(executorId, pageable);
-        return taskList.stream().map(this::toResponse).toList();
+        return queryCache.page(QueryCache.TASK_PAGES, "by-executor:" + executorId, pageable,
+                List.of(QueryCache.executor(executorId), QueryCache.USERS), () -> {
+            if( !userRepository.existsById(executorId) ){
+                throw new NotFoundException("There is no User with id: " + executorId);
+            }
+            List<TaskRow> rows = repository.findRowsByExecutorId(executorId, pageable);
+            return rows.stream().map(this::toResponse).toList();
+        });
     }
 
     public List<TaskResp> findAllByStatus(Task.Status status, Pageable pageable) {
-        List<Task> taskList = repository.findAllByStatus(status, pageable);
-        return taskList.stream().map(this::toResponse).toList();
+        return queryCache.page(QueryCache.TASK_PAGES, "by-status:" + status, pageable,
+                List.of(QueryCache.status(status), QueryCache.USERS), () -> {
+            List<TaskRow> rows = repository.findRowsByStatus(status, pageable);
+            return rows.stream().map(this::toResponse).toList();
+        });
     }
 
     public List<TaskResp> findAllByPriority(Task.Priority priority, Pageable pageable) {
-        List<Task> taskList = repository.findAllByPriority(priority, pageable);
-        return taskList.stream().map(this::toResponse).toList();
+        return queryCache.page(QueryCache.TASK_PAGES, "by-priority:" + priority, pageable,
+                List.of(QueryCache.priority(priority), QueryCache.USERS), () -> {
+            List<TaskRow> rows = repository.findRowsByPriority(priority, pageable);
+            return rows.stream().map(this::toResponse).toList();
+        });
     }
 
-    @Cacheable(value = "tasks", key = "#id")
+    // concurrent misses of the same id wait for a single loader
+    @Cacheable(value = "tasks", key = "#id", sync = true)
     public TaskResp findOne(Long id) {
-        Task task = repository.findFullTask(id).orElseThrow(
-                () -> new NoSuchElementException("There is no Task with id: " + id) );
+        return this.loadOne(id);
+    }
+
+    // bypasses the cache, used by findOne and by the refresh of "tasks"
+    public TaskResp loadOne(Long id) {
+        String missingKey = NegativeCache.task(id);
+        Task task = negativeCache.isMissing(missingKey) ? null : repository.findFullTask(id).orElse(null);
+        if (task == null) {
+            negativeCache.markMissing(missingKey);
+            throw new NotFoundException("There is no Task with id: " + id);
+        }
+        dependencyIndex.register("tasks", id, this.dependencies(task));
         return this.toResponse(task);
     }
 
+    // TaskResp embeds names of the author and the executor and the number of comments
+    private Set<String> dependencies(Task task) {
+        Set<String> dependencies = new HashSet<>();
+        dependencies.add(CacheDependencyIndex.task(task.getId()));
+        dependencies.add(CacheDependencyIndex.user(task.getAuthorId()));
+        if (task.getExecutorId() != null) {
+            dependencies.add(CacheDependencyIndex.user(task.getExecutorId()));
+        }
+        if (Hibernate.isInitialized(task.getComments())) {
+            task.getComments().forEach(c -> dependencies.add(CacheDependencyIndex.user(c.getAuthorId())));
+        }
+        return dependencies;
+    }
+
     private String toLocalDateTime(Date date){
         if(date == null ) return "not updated";
         Instant instant = date.toInstant();
@@ -250,8 +431,28 @@ public class TaskService {
         return taskList.stream().map(this::toResponse).toList();
     }
 
+    // ids of the page first, then rows of just those ids: fetching the comments collection along with
+    // a Pageable made Hibernate load every task and comment and cut the page in memory
     public List<TaskResp> findFullTasks(Pageable pageable) {
-        List<Task> taskList = repository.findAllBy(pageable).getContent();
-        return taskList.stream().map(this::toResponse).toList();
+        List<Long> ids = repository.findIds(pageable);
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, TaskRow> rows = new HashMap<>();
+        repository.findRowsByIdIn(ids).forEach(row -> rows.put(row.id(), row));
+
+        List<TaskResp> page = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            TaskRow row = rows.get(id);
+            if (row == null) continue;  // deleted between the two queries
+            page.add(this.toResponse(row));
+        }
+        return page;
+    }
+
+    // served by task_last_activity_idx, the page changes with every comment so it is not cached
+    public List<TaskResp> findRecentlyActive(Pageable pageable) {
+        Pageable limit = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        List<TaskRow> rows = repository.findRowsByRecentActivity(limit);
+        return rows.stream().map(this::toResponse).toList();
     }
 }
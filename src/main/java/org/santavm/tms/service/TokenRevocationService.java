@@ -0,0 +1,174 @@
+package org.santavm.tms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.cache.CacheInvalidationBus;
+import org.santavm.tms.model.RevokedToken;
+import org.santavm.tms.repository.RevokedTokenRepository;
+import org.santavm.tms.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revoked tokens are persisted in "revoked_token" and mirrored in memory.
+ * The Bloom filter answers "definitely not revoked" for almost every request without touching the exact set.
+ * Revocations are broadcast to the other instances over the cache invalidation bus once committed.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final String REVOCATION_DEPENDENCY = "revoked_token:";
+
+    private final RevokedTokenRepository repository;
+    private final long expectedEntries;
+    private final CacheInvalidationBus invalidationBus;
+
+    // replaced as a whole on compaction, reads are lock-free
+    private volatile Revocations revocations;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder bloomPositives = new LongAdder();
+    private final LongAdder revokedHits = new LongAdder();
+
+    public TokenRevocationService(RevokedTokenRepository repository,
+                                  @Value("${app.jwt.revocation.expected-entries:100000}") long expectedEntries,
+                                  CacheInvalidationBus invalidationBus) {
+        this.repository = repository;
+        this.expectedEntries = expectedEntries;
+        this.invalidationBus = invalidationBus;
+        this.revocations = new Revocations(new BloomFilter(expectedEntries, FALSE_POSITIVE_PROBABILITY), new ConcurrentHashMap<>());
+        invalidationBus.onDependents(REVOCATION_DEPENDENCY, this::receiveRevocation);
+    }
+
+    // "expiresAtMillis:key" revoked on other nodes, null when messages may have been lost
+    private void receiveRevocation(String revocation) {
+        if (revocation == null) {
+            load();
+            return;
+        }
+        int separator = revocation.indexOf(':');
+        remember(revocation.substring(separator + 1), new Date(Long.parseLong(revocation.substring(0, separator))));
+    }
+
+    private static String userKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    public boolean isRevoked(String tokenDigest, Long userId) {
+        checks.increment();
+        Revocations current = this.revocations;
+        return isRevoked(current, tokenDigest) || (userId != null && isRevoked(current, userKey(userId)));
+    }
+
+    private boolean isRevoked(Revocations current, String key) {
+        if (!current.bloom().mightContain(key)) {
+            return false;
+        }
+        bloomPositives.increment();
+        Long expiresAt = current.entries().get(key);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            revokedHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void revokeToken(String tokenDigest, Date expiresAt) {
+        revoke(tokenDigest, expiresAt);
+    }
+
+    // every token of the user issued so far expires within TOKEN_TTL_MILLIS
+    public void revokeUser(Long userId) {
+        revoke(userKey(userId), new Date(System.currentTimeMillis() + JwtService.TOKEN_TTL_MILLIS));
+    }
+
+    // inside a transaction the revocation is mirrored and published once it commits, a rolled back one leaves no trace
+    private void revoke(String key, Date expiresAt) {
+        repository.save(RevokedToken.builder()
+                .tokenKey(key)
+                .expiresAt(expiresAt)
+                .revokedAt(new Date())
+                .build());
+        Runnable revocation = () -> {
+            remember(key, expiresAt);
+            invalidationBus.publishDependents(REVOCATION_DEPENDENCY + expiresAt.getTime() + ":" + key);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revocation.run();
+                }
+            });
+        } else {
+            revocation.run();
+        }
+    }
+
+    private synchronized void remember(String key, Date expiresAt) {
+        revocations.entries().merge(key, expiresAt.getTime(), Math::max);
+        revocations.bloom().put(key);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            compact();
+        } catch (DataAccessException e) {
+            log.warn("Revoked tokens were not loaded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes entries of already expired tokens from DB and memory and rebuilds the Bloom filter,
+     * which can not forget keys. Revocations of other instances missed on the bus are picked up here as well.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.compaction-interval:PT10M}",
+            initialDelayString = "${app.jwt.revocation.compaction-interval:PT10M}")
+    public void compact() {
+        Date now = new Date();
+        int deleted = repository.deleteExpired(now);
+        Map<String, Long> live = new ConcurrentHashMap<>();
+        for (RevokedToken revoked : repository.findAllByExpiresAtAfter(now)) {
+            live.put(revoked.getTokenKey(), revoked.getExpiresAt().getTime());
+        }
+
+        synchronized (this) {
+            // keep local revocations not committed yet at the moment of the query
+            revocations.entries().forEach((key, expiresAt) -> {
+                if (expiresAt > now.getTime()) live.merge(key, expiresAt, Math::max);
+            });
+            BloomFilter bloom = new BloomFilter(Math.max(expectedEntries, 2L * live.size()), FALSE_POSITIVE_PROBABILITY);
+            live.keySet().forEach(bloom::put);
+            revocations = new Revocations(bloom, live);
+        }
+        log.info("Revoked tokens compacted: {} expired removed, {} active", deleted, live.size());
+    }
+
+    public Map<String, Object> getStats() {
+        Revocations current = this.revocations;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", current.entries().size());
+        stats.put("bloomBits", current.bloom().getBitCount());
+        stats.put("bloomHashFunctions", current.bloom().getHashFunctions());
+        stats.put("checks", checks.sum());
+        stats.put("bloomPositives", bloomPositives.sum());
+        stats.put("revokedHits", revokedHits.sum());
+        return stats;
+    }
+
+    private record Revocations(BloomFilter bloom, Map<String, Long> entries) {
+    }
+}
@@ -2,20 +2,29 @@ package org.santavm.tms.service;
 
 import lombok.RequiredArgsConstructor;
 import org.hibernate.Hibernate;
+import org.santavm.tms.cache.CacheDependencyIndex;
+import org.santavm.tms.cache.CacheInvalidator;
+import org.santavm.tms.cache.NegativeCache;
+import org.santavm.tms.cache.QueryCache;
 import org.santavm.tms.dto.AuthRequest;
 import org.santavm.tms.dto.AuthResponse;
+import org.santavm.tms.dto.UserActivity;
+import org.santavm.tms.dto.UserProfile;
 import org.santavm.tms.dto.UserReq;
 import org.santavm.tms.dto.UserResp;
 import org.santavm.tms.model.Comment;
 import org.santavm.tms.model.Task;
 import org.santavm.tms.model.User;
+import org.santavm.tms.model.UserPrincipal;
 import org.santavm.tms.repository.TaskRepository;
 import org.santavm.tms.repository.UserRepository;
 import org.santavm.tms.util.CustomPermissionException;
+import org.santavm.tms.util.NotFoundException;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,6 +42,12 @@ public class UserService {
     private final PasswordEncoder encoder;
     private final JwtService jwtService;
     private final TaskRepository taskRepository;
+    private final LoginThrottle loginThrottle;
+    private final CacheDependencyIndex dependencyIndex;
+    private final CacheInvalidator cacheInvalidator;
+    private final NegativeCache negativeCache;
+    private final QueryCache queryCache;
+    private final SearchService searchService;
 
     private final AuthenticationManager authenticationManager;
 
@@ -47,36 +62,90 @@ public class UserService {
         }
 
         User savedUser = repository.saveAndFlush(user);
+        negativeCache.forget(NegativeCache.user(savedUser.getId()));
+        negativeCache.forget(NegativeCache.email(savedUser.getEmail()));
         return savedUser.getId();
     }
 
     public AuthResponse login(AuthRequest authRequest){
+        loginThrottle.acquire(authRequest.getEmail());
         Authentication auth = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         authRequest.getEmail(),
                         authRequest.getPassword()
                 ));
         User user = (User) auth.getPrincipal();
-        String token = jwtService.generateToken(user.getEmail());
+        String token = jwtService.generateToken(user);
         return new AuthResponse(user.getId(), token);
     }
 
+    public void logout(String authHeader){
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new BadCredentialsException("There is no Bearer token in Authorization header");
+        }
+        jwtService.revokeToken(authHeader.substring(7));
+    }
+
     public List<UserResp> getAll() {
         List<User> userList = repository.findAll();
         return userList.stream().map(this::toResponse).toList();
     }
 
-    // we need 3 calls here to avoid MultipleBagFetchException and Cartesian product
-    @Cacheable(value = "user_resp", key = "#id")
+    // concurrent misses of the same id wait for a single loader
+    @Cacheable(value = "user_resp", key = "#id", sync = true)
     @Transactional(readOnly = true)
     public UserResp getById(Long id){
-        // all 3 users merged in one persistence context
-        User user = repository.findByIdWithTasks(id).orElseThrow(
-                () -> new NoSuchElementException("There is no User with id: " + id)
-        );
-        User user1 = repository.findOneById(id).orElseThrow();
-        User user2 = repository.findOneByIdWithTasks(id).orElseThrow();
-        return this.toResponse(user2);
+        return this.loadById(id);
+    }
+
+    // bypasses the cache, used by getById and by the refresh of "user_resp"
+    // 2 statements and no entities: the user row and the id/title tuples of everything UserResp lists
+    @Transactional(readOnly = true)
+    public UserResp loadById(Long id){
+        String missingKey = NegativeCache.user(id);
+        UserProfile profile = negativeCache.isMissing(missingKey) ? null : repository.findProfile(id).orElse(null);
+        if (profile == null) {
+            negativeCache.markMissing(missingKey);
+            throw new NotFoundException("There is no User with id: " + id);
+        }
+        List<UserActivity> activity = repository.findActivity(id);
+        dependencyIndex.register("user_resp", id, this.dependencies(id, activity));
+        return this.toResponse(profile, activity);
+    }
+
+    // UserResp embeds titles of authored and executed tasks and ids of tasks the user commented
+    private Set<String> dependencies(Long userId, List<UserActivity> activity) {
+        Set<String> dependencies = new HashSet<>();
+        dependencies.add(CacheDependencyIndex.user(userId));
+        for (UserActivity row : activity) {
+            Long taskId = "C".equals(row.getKind()) ? row.getTaskId() : row.getId();
+            dependencies.add(CacheDependencyIndex.task(taskId));
+        }
+        return dependencies;
+    }
+
+    private UserResp toResponse(UserProfile profile, List<UserActivity> activity) {
+        UserResp resp = new UserResp();
+        resp.setId(profile.id());
+        resp.setFirstName(profile.firstName());
+        resp.setLastName(profile.lastName());
+        resp.setEmail(profile.email());
+        resp.setRole(profile.role());
+        List<String> asAuthor = new ArrayList<>();
+        List<String> asExecutor = new ArrayList<>();
+        List<String> comments = new ArrayList<>();
+        for (UserActivity row : activity) {
+            switch (row.getKind()) {
+                case "A" -> asAuthor.add("id: " + row.getId() + ", title: " + row.getTitle());
+                case "E" -> asExecutor.add("id: " + row.getId() + ", title: " + row.getTitle());
+                case "C" -> comments.add("id: " + row.getId() + ", to task: " + row.getTaskId());
+                default -> throw new IllegalStateException("Unknown activity kind: " + row.getKind());
+            }
+        }
+        resp.setAsAuthor(asAuthor);
+        resp.setAsExecutor(asExecutor);
+        resp.setComments(comments);
+        return resp;
     }
 
     public UserResp toResponse(User user){
@@ -134,13 +203,12 @@ public class UserService {
     // Only ADMIN  user can do this
     @Caching(evict = {
             @CacheEvict(value = "users", key = "#result.email"),
-            @CacheEvict(value = "user_resp", key = "#userId"),
-            @CacheEvict(value = "tasks", allEntries = true)
+            @CacheEvict(value = "user_resp", key = "#userId")
     })
     public User deleteUser(Long userId) {
 
         User user = repository.findByIdWithTasks(userId).orElseThrow(
-                () -> new NoSuchElementException("There is no User with id: " + userId));
+                () -> new NotFoundException("There is no User with id: " + userId));
 
         // There is no orphan removal here!!!
         List<Long> executedTaskList = user.getExecutedTasks()
@@ -151,25 +219,64 @@ public class UserService {
         // clear executor field in affected tasks
         taskRepository.clearExecutors(executedTaskList);
 
+        // authored tasks are removed with the user, executors of those tasks list them
+        List<Long> authoredTaskList = user.getAuthoredTasks()
+                .stream()
+                .map(Task::getId)
+                .toList();
+
+        // comments of the user on other tasks go away with the user
+        taskRepository.removeCommentsOf(userId);
+
         // update User DB
         repository.delete(user);
 
+        // tasks that embed the name of the user: authored, executed and commented ones
+        cacheInvalidator.evictDependents(CacheDependencyIndex.user(userId));
+        authoredTaskList.forEach(taskId -> cacheInvalidator.evictDependents(CacheDependencyIndex.task(taskId)));
+        // list pages of the removed and of the unassigned tasks, comment pages of the removed comments
+        Set<String> dimensions = new HashSet<>(List.of(QueryCache.ALL_TASKS, QueryCache.USERS,
+                QueryCache.author(userId), QueryCache.executor(userId)));
+        for (Task task : user.getAuthoredTasks()) {
+            dimensions.add(QueryCache.status(task.getStatus()));
+            dimensions.add(QueryCache.priority(task.getPriority()));
+            if (task.getExecutorId() != null) dimensions.add(QueryCache.executor(task.getExecutorId()));
+            dimensions.add(QueryCache.commentsOfTask(task.getId()));
+        }
+        for (Task task : user.getExecutedTasks()) {
+            dimensions.add(QueryCache.status(task.getStatus()));
+            dimensions.add(QueryCache.priority(task.getPriority()));
+            dimensions.add(QueryCache.author(task.getAuthorId()));
+        }
+        queryCache.bump(dimensions);
+        searchService.removeUser(userId, authoredTaskList);
+
+        jwtService.invalidateAllTokens(userId);
+
         return user;    // for caching purpose only
     }
 
     @Caching(evict = {
-            @CacheEvict(value = "users", allEntries = true),
+            @CacheEvict(value = "users", key = "#newUser.email"),
             @CacheEvict(value = "user_resp", key = "#result.id")
     })
     public UserResp updateUser(UserReq newUser, Authentication auth) {
-        User current = (User) auth.getPrincipal();
+        UserPrincipal current = (UserPrincipal) auth.getPrincipal();
         User fromDb = repository.findById( current.getId()).orElseThrow();
+        cacheInvalidator.evict("users", fromDb.getEmail());
+        negativeCache.forget(NegativeCache.email(newUser.getEmail()));
         fromDb.setFirstName(newUser.getFirstName());
         fromDb.setLastName(newUser.getLastName());
         fromDb.setEmail(newUser.getEmail());
         fromDb.setPassword( encoder.encode( newUser.getPassword() ));
         fromDb.setRole(newUser.getRole());
+        // email, password or role may be changed, so all issued tokens are outdated
+        fromDb.setTokenVersion(fromDb.getTokenVersion() + 1);
         User saved = repository.save(fromDb);
+        jwtService.invalidateTokens(saved.getId(), saved.getTokenVersion());
+        // the name may be changed, it is embedded into TaskResp of authored, executed and commented tasks
+        cacheInvalidator.evictDependents(CacheDependencyIndex.user(saved.getId()));
+        queryCache.bump(QueryCache.USERS);
         return this.toResponse(saved);
     }
 }
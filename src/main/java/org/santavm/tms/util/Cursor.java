@@ -0,0 +1,50 @@
+package org.santavm.tms.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position after the last row of a page in (createdAt desc, id desc) order.
+ * Clients get it as an opaque token, the next page starts right after it whatever was inserted in between,
+ * and the database seeks to it through the index instead of skipping offset rows.
+ */
+public record Cursor(Instant createdAt, Long id) {
+    private static final String VERSION = "1";
+
+    // before the first row, so the first page is a seek as well
+    public static final Cursor FIRST = new Cursor(Instant.parse("9999-12-31T00:00:00Z"), Long.MAX_VALUE);
+
+    public static Cursor after(Date createdAt, Long id) {
+        // a Timestamp keeps the database precision, nanoseconds included
+        return new Cursor(createdAt.toInstant(), id);
+    }
+
+    public Timestamp timestamp() {
+        return Timestamp.from(createdAt);
+    }
+
+    public String encode() {
+        String plain = VERSION + ":" + createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null or blank token means the first page
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) return FIRST;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            return new Cursor(createdAt, Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // NumberFormatException and malformed base64 included
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
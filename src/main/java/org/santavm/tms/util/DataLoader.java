@@ -9,13 +9,16 @@ import org.santavm.tms.repository.TaskRepository;
 import org.santavm.tms.repository.UserRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.TreeSet;
 
 @Component
+@Order(1)   // before WarmupRunner
 @RequiredArgsConstructor
 @ConditionalOnProperty(     // to disable running with tests
         prefix = "command.line.runner",
@@ -29,7 +32,13 @@ public class DataLoader implements CommandLineRunner {
     private final CommentRepository commentRepository;
 
     @Override
+    @Transactional
     public void run(String... args) throws Exception {
+        // the schema is kept between starts now, see db/migration
+        if (userRepository.findByEmail("adm@site.com").isPresent()) {
+            System.out.println("Sample data already loaded");
+            return;
+        }
         var admin = User.builder()
                 .firstName("Admin")
                 .lastName("Admin")
@@ -50,6 +59,7 @@ public class DataLoader implements CommandLineRunner {
         User savedUser = userRepository.save(user);
         System.out.println("User saved, id: " + savedUser.getId());
 
+        Date now = new Date();
         var task_1 = Task.builder()
                 .author(savedAdmin)
                 .executor(savedUser)
@@ -57,7 +67,8 @@ public class DataLoader implements CommandLineRunner {
                 .description("The first Task from CommandLineRunner")
                 .status(Task.Status.IN_PROGRESS)
                 .priority(Task.Priority.HIGH)
-                .createdAt(new Date())
+                .createdAt(now)
+                .lastActivityAt(now)
                 .build();
         Task task_1Saved = taskRepository.save(task_1);
         System.out.println("Task_1 saved, id: " + task_1Saved.getId());
@@ -69,7 +80,8 @@ public class DataLoader implements CommandLineRunner {
                 .description("Second Task with Admin as executor from CommandLineRunner")
                 .status(Task.Status.IN_PROGRESS)
                 .priority(Task.Priority.HIGH)
-                .createdAt(new Date())
+                .createdAt(now)
+                .lastActivityAt(now)
                 .build();
         Task task_2Saved = taskRepository.save(task_2);
         System.out.println("Task_2 saved, id: " + task_2Saved.getId());
@@ -88,6 +100,9 @@ public class DataLoader implements CommandLineRunner {
                 .build();
         Comment comment_1saved = commentRepository.save(comment_1);
         Comment comment_2saved = commentRepository.save(comment_2);
+        // the count is not written from the entity, as in CommentService.create
+        taskRepository.addComments(task_1Saved.getId(), 1, comment_1saved.getCreatedAt());
+        taskRepository.addComments(task_2Saved.getId(), 1, comment_2saved.getCreatedAt());
         System.out.println("Comment_1 saved: " + comment_1saved); // null for authorId and taskId here, but DB is ok
         System.out.println("Comment_2 saved: " + comment_2saved);
 
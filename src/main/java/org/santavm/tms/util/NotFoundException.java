@@ -0,0 +1,15 @@
+package org.santavm.tms.util;
+
+import java.util.NoSuchElementException;
+
+// Thrown on hot "not found" paths, the stack trace is useless there and costs more than the lookup itself
+public class NotFoundException extends NoSuchElementException {
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
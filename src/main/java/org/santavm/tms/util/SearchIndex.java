@@ -0,0 +1,393 @@
+package org.santavm.tms.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over task titles and descriptions and comment contents, ranked with BM25.
+ * Every document gets an ordinal, postings of a term list the ordinals of the documents containing it
+ * in ascending order. A removed or replaced document leaves dead entries in the postings,
+ * they are skipped and compacted away once they make up half of a postings list or of all ordinals.
+ * The ordinals of every author and of the comments on every task are kept as well, removing a task
+ * or a user touches their documents only.
+ */
+public class SearchIndex {
+    public enum Kind { TASK, COMMENT }
+
+    // BM25 parameters, the usual defaults
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // a title counts as this many occurrences of its terms
+    private static final int TITLE_WEIGHT = 2;
+    private static final int LABEL_LENGTH = 100;
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "in", "is", "it", "of", "on", "or", "that", "the", "this", "to", "was", "with");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+    // by ordinal, null once removed
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<Long, Integer> tasks = new HashMap<>();
+    private final Map<Long, Integer> comments = new HashMap<>();
+    private final Map<Long, Set<Integer>> commentsByTask = new HashMap<>();
+    private final Map<Long, Set<Integer>> byAuthor = new HashMap<>();
+    private long totalLength;
+
+    public record Hit(Kind kind, long id, long taskId, String label, float score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private record Doc(Kind kind, long id, long taskId, long authorId, int length, String label, int[] terms) {
+    }
+
+    private record Scored(int ordinal, float score) {
+        // worst first, as a PriorityQueue of the best keeps it
+        static final Comparator<Scored> ORDER = Comparator.comparingDouble(Scored::score).thenComparingInt(Scored::ordinal);
+    }
+
+    private static final class Postings {
+        int[] ordinals = new int[4];
+        int[] freqs = new int[4];
+        int size;
+        int dead;
+
+        void add(int ordinal, int freq) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            ordinals[size] = ordinal;
+            freqs[size] = freq;
+            size++;
+        }
+
+        int live() {
+            return size - dead;
+        }
+    }
+
+    // lower case words of letters and digits, stop words and single characters are left out
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start > 1) {
+                    String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!STOP_WORDS.contains(token)) tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // adds the task or replaces its earlier version
+    public void putTask(long id, long authorId, String title, String description) {
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String token : tokenize(title)) freqs.merge(token, TITLE_WEIGHT, Integer::sum);
+        for (String token : tokenize(description)) freqs.merge(token, 1, Integer::sum);
+        this.put(Kind.TASK, id, id, authorId, label(title), freqs);
+    }
+
+    public void putComment(long id, long taskId, long authorId, String content) {
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String token : tokenize(content)) freqs.merge(token, 1, Integer::sum);
+        this.put(Kind.COMMENT, id, taskId, authorId, label(content), freqs);
+    }
+
+    private static String label(String text) {
+        if (text == null) return "";
+        return text.length() <= LABEL_LENGTH ? text : text.substring(0, LABEL_LENGTH) + "...";
+    }
+
+    private void put(Kind kind, long id, long taskId, long authorId, String label, Map<String, Integer> freqs) {
+        lock.writeLock().lock();
+        try {
+            Map<Long, Integer> ordinals = kind == Kind.TASK ? tasks : comments;
+            Integer previous = ordinals.get(id);
+            if (previous != null) this.remove(previous);
+
+            int ordinal = docs.size();
+            int[] terms = new int[freqs.size()];
+            int length = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+                Integer term = termIds.get(entry.getKey());
+                if (term == null) {
+                    term = postings.size();
+                    termIds.put(entry.getKey(), term);
+                    postings.add(new Postings());
+                }
+                postings.get(term).add(ordinal, entry.getValue());
+                terms[i] = term;
+                length += entry.getValue();
+                i++;
+            }
+            Doc doc = new Doc(kind, id, taskId, authorId, length, label, terms);
+            docs.add(doc);
+            ordinals.put(id, ordinal);
+            this.link(doc, ordinal);
+            totalLength += length;
+            // an update leaves the ordinal of the earlier version behind
+            if (previous != null) this.compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the task goes with its comments
+    public void removeTask(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = tasks.get(id);
+            if (ordinal != null) this.remove(ordinal);
+            this.removeAll(commentsByTask.get(id));
+            this.compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeComment(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = comments.get(id);
+            if (ordinal == null) return;
+            this.remove(ordinal);
+            this.compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // documents of the user and comments on the given tasks of the user and on the ones indexed as the user's
+    public void removeAuthor(long authorId, Collection<Long> taskIds) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> removedTasks = new HashSet<>(taskIds);
+            for (int ordinal : byAuthor.getOrDefault(authorId, Set.of())) {
+                Doc doc = docs.get(ordinal);
+                if (doc.kind() == Kind.TASK) removedTasks.add(doc.id());
+            }
+            this.removeAll(byAuthor.get(authorId));
+            for (long taskId : removedTasks) {
+                Integer ordinal = tasks.get(taskId);
+                if (ordinal != null) this.remove(ordinal);
+                this.removeAll(commentsByTask.get(taskId));
+            }
+            this.compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeAll(Set<Integer> ordinals) {
+        if (ordinals == null) return;
+        // remove unlinks each ordinal from the set
+        for (int ordinal : List.copyOf(ordinals)) this.remove(ordinal);
+    }
+
+    private void link(Doc doc, int ordinal) {
+        byAuthor.computeIfAbsent(doc.authorId(), author -> new HashSet<>()).add(ordinal);
+        if (doc.kind() == Kind.COMMENT) {
+            commentsByTask.computeIfAbsent(doc.taskId(), task -> new HashSet<>()).add(ordinal);
+        }
+    }
+
+    private void unlink(Doc doc, int ordinal) {
+        unlink(byAuthor, doc.authorId(), ordinal);
+        if (doc.kind() == Kind.COMMENT) unlink(commentsByTask, doc.taskId(), ordinal);
+    }
+
+    private static void unlink(Map<Long, Set<Integer>> ordinals, long key, int ordinal) {
+        Set<Integer> set = ordinals.get(key);
+        if (set != null && set.remove(ordinal) && set.isEmpty()) ordinals.remove(key);
+    }
+
+    private void remove(int ordinal) {
+        Doc doc = docs.set(ordinal, null);
+        if (doc == null) return;
+        (doc.kind() == Kind.TASK ? tasks : comments).remove(doc.id(), ordinal);
+        this.unlink(doc, ordinal);
+        totalLength -= doc.length();
+        for (int term : doc.terms()) {
+            Postings list = postings.get(term);
+            list.dead++;
+            if (list.dead * 2 > list.size) this.compact(list);
+        }
+    }
+
+    private void compact(Postings list) {
+        int size = 0;
+        for (int i = 0; i < list.size; i++) {
+            if (docs.get(list.ordinals[i]) != null) {
+                list.ordinals[size] = list.ordinals[i];
+                list.freqs[size] = list.freqs[i];
+                size++;
+            }
+        }
+        list.size = size;
+        list.dead = 0;
+    }
+
+    // removed documents keep their ordinals, once they are the majority the live ones are numbered anew
+    private void compactIfSparse() {
+        int live = tasks.size() + comments.size();
+        if (docs.size() < 1024 || live * 2 > docs.size()) return;
+        int[] renumbered = new int[docs.size()];
+        List<Doc> kept = new ArrayList<>(live);
+        for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+            Doc doc = docs.get(ordinal);
+            renumbered[ordinal] = doc == null ? -1 : kept.size();
+            if (doc != null) kept.add(doc);
+        }
+        for (Postings list : postings) {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int ordinal = renumbered[list.ordinals[i]];
+                if (ordinal >= 0) {
+                    list.ordinals[size] = ordinal;
+                    list.freqs[size] = list.freqs[i];
+                    size++;
+                }
+            }
+            list.size = size;
+            list.dead = 0;
+        }
+        docs.clear();
+        docs.addAll(kept);
+        tasks.replaceAll((id, ordinal) -> renumbered[ordinal]);
+        comments.replaceAll((id, ordinal) -> renumbered[ordinal]);
+        byAuthor.clear();
+        commentsByTask.clear();
+        for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+            this.link(docs.get(ordinal), ordinal);
+        }
+    }
+
+    // documents containing any of the query terms, best first, kind null means both kinds
+    public Result search(String query, Kind kind, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            int documents = tasks.size() + comments.size();
+            if (terms.isEmpty() || documents == 0) return new Result(List.of(), 0);
+            float averageLength = (float) totalLength / documents;
+
+            List<Postings> matching = new ArrayList<>();
+            long entries = 0;
+            for (String term : terms) {
+                Integer id = termIds.get(term);
+                if (id != null && postings.get(id).live() > 0) {
+                    matching.add(postings.get(id));
+                    entries += postings.get(id).size;
+                }
+            }
+            // an array over all ordinals pays off once the postings cover a good part of them
+            Scores scores = entries * 8 > docs.size() ? new DenseScores(docs.size()) : new SparseScores();
+            for (Postings list : matching) {
+                float idf = (float) Math.log(1 + (documents - list.live() + 0.5) / (list.live() + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    Doc doc = docs.get(list.ordinals[i]);
+                    if (doc == null || (kind != null && doc.kind() != kind)) continue;
+                    float tf = list.freqs[i];
+                    float norm = K1 * (1 - B + B * doc.length() / averageLength);
+                    scores.add(list.ordinals[i], idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+
+            // the best offset + limit documents, newer ones first among equal scores
+            int wanted = offset + limit;
+            PriorityQueue<Scored> best = new PriorityQueue<>(wanted + 1, Scored.ORDER);
+            int[] total = new int[1];
+            scores.forEach((ordinal, score) -> {
+                total[0]++;
+                Scored scored = new Scored(ordinal, score);
+                if (best.size() < wanted) {
+                    best.add(scored);
+                } else if (wanted > 0 && Scored.ORDER.compare(scored, best.peek()) > 0) {
+                    best.poll();
+                    best.add(scored);
+                }
+            });
+            List<Hit> hits = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                Scored scored = best.poll();
+                Doc doc = docs.get(scored.ordinal());
+                hits.add(new Hit(doc.kind(), doc.id(), doc.taskId(), doc.label(), scored.score()));
+            }
+            Collections.reverse(hits);
+            return new Result(hits.subList(Math.min(offset, hits.size()), hits.size()), total[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("tasks", tasks.size());
+            stats.put("comments", comments.size());
+            stats.put("terms", termIds.size());
+            stats.put("ordinals", docs.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    private interface Scores {
+        void add(int ordinal, float score);
+
+        void forEach(ScoreConsumer consumer);
+    }
+
+    @FunctionalInterface
+    private interface ScoreConsumer {
+        void accept(int ordinal, float score);
+    }
+
+    private static final class SparseScores implements Scores {
+        private final Map<Integer, Float> scores = new HashMap<>();
+
+        @Override
+        public void add(int ordinal, float score) {
+            scores.merge(ordinal, score, Float::sum);
+        }
+
+        @Override
+        public void forEach(ScoreConsumer consumer) {
+            scores.forEach(consumer::accept);
+        }
+    }
+
+    private static final class DenseScores implements Scores {
+        private final float[] scores;
+
+        DenseScores(int ordinals) {
+            this.scores = new float[ordinals];
+        }
+
+        @Override
+        public void add(int ordinal, float score) {
+            scores[ordinal] += score;
+        }
+
+        @Override
+        public void forEach(ScoreConsumer consumer) {
+            for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+                if (scores[ordinal] > 0) consumer.accept(ordinal, scores[ordinal]);
+            }
+        }
+    }
+}
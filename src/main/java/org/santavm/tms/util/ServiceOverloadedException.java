@@ -0,0 +1,7 @@
+package org.santavm.tms.util;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
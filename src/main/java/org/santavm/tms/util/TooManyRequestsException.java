@@ -0,0 +1,7 @@
+package org.santavm.tms.util;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
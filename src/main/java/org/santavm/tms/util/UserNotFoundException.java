@@ -0,0 +1,15 @@
+package org.santavm.tms.util;
+
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+// Stackless like NotFoundException, unknown emails come with every failed login and every stale token
+public class UserNotFoundException extends UsernameNotFoundException {
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,157 @@
+package org.santavm.tms.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.santavm.tms.cache.CacheSnapshot;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.service.TaskService;
+import org.santavm.tms.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs after DataLoader and before the application reports readiness:
+ * command line runners are called before the readiness state becomes ACCEPTING_TRAFFIC.
+ * Opens pool connections, fills "tasks" and "user_resp" with configured and snapshot keys
+ * and replays criteria queries to get the hot paths compiled.
+ */
+@Component
+@Order(2)
+@Slf4j
+public class WarmupRunner implements CommandLineRunner {
+    private final TaskService taskService;
+    private final UserService userService;
+    private final CacheSnapshot snapshot;
+    private final DataSource dataSource;
+
+    private final boolean enabled;
+    private final List<Long> taskIds;
+    private final List<Long> userIds;
+    private final int criteriaRounds;
+    private final int connections;
+
+    private final Map<String, Object> report = new LinkedHashMap<>(Map.of("state", "NOT_RUN"));
+
+    public WarmupRunner(TaskService taskService, UserService userService, CacheSnapshot snapshot, DataSource dataSource,
+                        @Value("${app.warmup.enabled:true}") boolean enabled,
+                        @Value("${app.warmup.task-ids:}") List<Long> taskIds,
+                        @Value("${app.warmup.user-ids:}") List<Long> userIds,
+                        @Value("${app.warmup.criteria-rounds:20}") int criteriaRounds,
+                        @Value("${app.warmup.connections:10}") int connections) {
+        this.taskService = taskService;
+        this.userService = userService;
+        this.snapshot = snapshot;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.taskIds = taskIds;
+        this.userIds = userIds;
+        this.criteriaRounds = criteriaRounds;
+        this.connections = connections;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        synchronized (report) {
+            report.put("state", "RUNNING");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            result.put("connectionsOpened", openConnections());
+
+            Map<String, List<Long>> snapshotKeys = snapshot.read();
+            result.put("snapshotKeys", snapshotKeys.values().stream().mapToInt(List::size).sum());
+            // configured ids first, then the keys that were hot before the restart
+            Set<Long> tasks = new LinkedHashSet<>(taskIds);
+            tasks.addAll(snapshotKeys.getOrDefault("tasks", List.of()));
+            Set<Long> users = new LinkedHashSet<>(userIds);
+            users.addAll(snapshotKeys.getOrDefault("user_resp", List.of()));
+            int primedTasks = prime(tasks, taskService::findOne);
+            int primedUsers = prime(users, userService::getById);
+            result.put("primedTasks", primedTasks);
+            result.put("primedUsers", primedUsers);
+            result.put("primedKeys", primedTasks + primedUsers);
+
+            result.put("criteriaQueries", replayCriteriaQueries());
+            result.put("state", "DONE");
+        } catch (RuntimeException e) {
+            // a cold start is slow, but it is not a reason to refuse starting
+            log.warn("Warmup failed: " + e.getMessage());
+            result.put("state", "FAILED");
+            result.put("error", e.getMessage());
+        }
+        result.put("durationMillis", (System.nanoTime() - start) / 1_000_000);
+        log.info("Warmup finished: {}", result);
+        synchronized (report) {
+            report.clear();
+            report.putAll(result);
+        }
+    }
+
+    // borrowing them at once makes the pool establish them now instead of on the first requests
+    private int openConnections() {
+        List<Connection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                opened.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Warmup opened {} connection(s) only: {}", opened.size(), e.getMessage());
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // returned to the pool or already broken, nothing to do
+                }
+            }
+        }
+        return opened.size();
+    }
+
+    private int prime(Collection<Long> ids, Consumer<Long> reader) {
+        int primed = 0;
+        for (Long id : ids) {
+            try {
+                reader.accept(id);
+                primed++;
+            } catch (NoSuchElementException e) {
+                log.debug("Warmup skipped missing id {}", id);
+            }
+        }
+        return primed;
+    }
+
+    private int replayCriteriaQueries() {
+        int queries = 0;
+        Pageable pageable = PageRequest.of(0, 20);
+        for (int round = 0; round < criteriaRounds; round++) {
+            for (Task.Status status : Task.Status.values()) {
+                for (Task.Priority priority : Task.Priority.values()) {
+                    taskService.loadByCriteria(TaskCriteria.of(null, null, status, priority), pageable);
+                    queries++;
+                }
+            }
+            taskService.findAll(pageable);
+            queries++;
+        }
+        return queries;
+    }
+
+    public Map<String, Object> getReport() {
+        synchronized (report) {
+            return new LinkedHashMap<>(report);
+        }
+    }
+}
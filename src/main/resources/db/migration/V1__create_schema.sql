@@ -0,0 +1,50 @@
+-- Schema as created by Hibernate before migrations were introduced.
+-- Existing databases are baselined at this version, see spring.flyway.baseline-on-migrate.
+-- Sequences step by 50, the allocation size of @GeneratedValue.
+
+CREATE SEQUENCE IF NOT EXISTS user_table_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS task_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comment_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS user_table
+(
+    id         BIGINT       NOT NULL,
+    first_name VARCHAR(40),
+    last_name  VARCHAR(60),
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255),
+    role       VARCHAR(255) CHECK (role IN ('USER', 'ADMIN')),
+    CONSTRAINT pk_user_table PRIMARY KEY (id),
+    CONSTRAINT uc_user_table_email UNIQUE (email)
+);
+
+CREATE INDEX IF NOT EXISTS email_idx ON user_table (email);
+
+CREATE TABLE IF NOT EXISTS task
+(
+    id          BIGINT       NOT NULL,
+    title       VARCHAR(255),
+    description VARCHAR(255),
+    status      VARCHAR(255) NOT NULL CHECK (status IN ('ON_HOLD', 'IN_PROGRESS', 'COMPLETED')),
+    priority    VARCHAR(255) NOT NULL CHECK (priority IN ('HIGH', 'REGULAR', 'LOW')),
+    author_id   BIGINT,
+    executor_id BIGINT,
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    CONSTRAINT pk_task PRIMARY KEY (id),
+    CONSTRAINT fk_task_on_author FOREIGN KEY (author_id) REFERENCES user_table (id),
+    CONSTRAINT fk_task_on_executor FOREIGN KEY (executor_id) REFERENCES user_table (id)
+);
+
+CREATE TABLE IF NOT EXISTS comment
+(
+    id         BIGINT       NOT NULL,
+    task_id    BIGINT,
+    author_id  BIGINT,
+    content    VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    CONSTRAINT pk_comment PRIMARY KEY (id),
+    CONSTRAINT fk_comment_on_task FOREIGN KEY (task_id) REFERENCES task (id),
+    CONSTRAINT fk_comment_on_author FOREIGN KEY (author_id) REFERENCES user_table (id)
+);
@@ -0,0 +1,13 @@
+-- One index per list query: the filter column first, then the default sort (created_at DESC, id DESC),
+-- so a page is read in index order and the scan stops at its limit instead of sorting all matches.
+-- The same indexes serve the keyset (scroll) queries and the foreign keys, e.g. executor_id on user delete.
+
+CREATE INDEX IF NOT EXISTS task_author_created_idx ON task (author_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS task_executor_created_idx ON task (executor_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS task_status_created_idx ON task (status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS task_priority_created_idx ON task (priority, created_at DESC, id DESC);
+-- criteria queries without a filter and /tasks/scroll
+CREATE INDEX IF NOT EXISTS task_created_idx ON task (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS comment_task_created_idx ON comment (task_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS comment_author_created_idx ON comment (author_id, created_at DESC, id DESC);
@@ -0,0 +1,16 @@
+-- Denormalized activity of a task, kept up to date by atomic updates in TaskRepository:
+-- the number of its comments and the time of the last change to it or to one of its comments.
+
+ALTER TABLE task ADD COLUMN comment_count INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE task ADD COLUMN last_activity_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+UPDATE task
+SET comment_count    = (SELECT COUNT(*) FROM comment c WHERE c.task_id = task.id),
+    last_activity_at = COALESCE(GREATEST(created_at, updated_at,
+                                         (SELECT MAX(GREATEST(c.created_at, c.updated_at))
+                                          FROM comment c WHERE c.task_id = task.id)),
+                                last_activity_at);
+
+-- /tasks/recently-active and sort=lastActivityAt / sort=commentCount on the list endpoints
+CREATE INDEX IF NOT EXISTS task_last_activity_idx ON task (last_activity_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS task_comment_count_idx ON task (comment_count DESC, id DESC);
@@ -0,0 +1,14 @@
+-- Token revocation: the per-user version embedded in tokens and the revoked tokens themselves.
+-- Databases that Hibernate updated before they were baselined may already have both, hence IF NOT EXISTS.
+
+ALTER TABLE user_table ADD COLUMN IF NOT EXISTS token_version INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS revoked_token
+(
+    token_key  VARCHAR(64)  NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    revoked_at TIMESTAMP(6),
+    CONSTRAINT pk_revoked_token PRIMARY KEY (token_key)
+);
+
+CREATE INDEX IF NOT EXISTS revoked_token_expires_idx ON revoked_token (expires_at);
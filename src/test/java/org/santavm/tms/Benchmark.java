@@ -0,0 +1,48 @@
+package org.santavm.tms;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Latency timing shared by the benchmark tests (@Tag("benchmark"), run with: mvn test -P benchmark).
+ */
+public final class Benchmark {
+
+    private Benchmark() {
+    }
+
+    // the median of iterations timed calls, after as many untimed ones
+    public static long median(int iterations, Callable<?> operation) throws Exception {
+        warmUp(iterations, operation);
+        return time(iterations, operation).p50();
+    }
+
+    public static void warmUp(int iterations, Callable<?> operation) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            operation.call();
+        }
+    }
+
+    public static Latencies time(int iterations, Callable<?> operation) throws Exception {
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.call();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return new Latencies(latencies);
+    }
+
+    // sorted nanoseconds of every timed call
+    public record Latencies(long[] sorted) {
+
+        public long p50() {
+            return sorted[sorted.length / 2];
+        }
+
+        public long p99() {
+            return sorted[sorted.length * 99 / 100];
+        }
+    }
+}
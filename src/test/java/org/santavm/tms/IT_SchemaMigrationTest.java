@@ -0,0 +1,167 @@
+package org.santavm.tms;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.repository.CommentRepository;
+import org.santavm.tms.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The schema is built by db/migration and validated against the entities (ddl-auto: validate),
+// then the SQL Hibernate generates for the list queries is explained to see which index it reads.
+@ActiveProfiles(profiles = {"test"})
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.datasource.url=jdbc:h2:mem:migrations",
+        "spring.flyway.enabled=true",
+        "spring.jpa.defer-datasource-initialization=false",  // Flyway has to run before Hibernate validates
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.santavm.tms.IT_SchemaMigrationTest$CapturedSql"})
+class IT_SchemaMigrationTest {
+
+    private static final Pageable NEWEST = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void fillTables() {
+        if (jdbcTemplate.queryForObject("select count(*) from task", Long.class) > 0) return;
+        // H2 backs every foreign key with an index of its own and prefers it, Postgres does not create them,
+        // without the constraints the planner has the same indexes to choose from as on Postgres
+        jdbcTemplate.execute("alter table task drop constraint fk_task_on_author");
+        jdbcTemplate.execute("alter table task drop constraint fk_task_on_executor");
+        jdbcTemplate.execute("alter table comment drop constraint fk_comment_on_task");
+        jdbcTemplate.execute("alter table comment drop constraint fk_comment_on_author");
+
+        Timestamp now = Timestamp.from(Instant.now());
+        for (long user = 1; user <= 20; user++) {
+            jdbcTemplate.update("insert into user_table (id, first_name, last_name, email, password, role) " +
+                    "values (?, 'First', 'Last', ?, 'pass', 'USER')", user, "user" + user + "@site.com");
+        }
+        String[] statuses = {"ON_HOLD", "IN_PROGRESS", "COMPLETED"};
+        String[] priorities = {"HIGH", "REGULAR", "LOW"};
+        List<Object[]> tasks = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            tasks.add(new Object[]{id, "title", "description", statuses[(int) (id % 3)], priorities[(int) (id / 3 % 3)],
+                    id % 20 + 1, (id + 7) % 20 + 1, new Timestamp(now.getTime() - id * 1000)});
+            comments.add(new Object[]{id, id % 200 + 1, id % 20 + 1, "content", new Timestamp(now.getTime() - id * 1000)});
+        }
+        jdbcTemplate.batchUpdate("insert into task (id, title, description, status, priority, author_id, executor_id, created_at) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?)", tasks);
+        jdbcTemplate.batchUpdate("insert into comment (id, task_id, author_id, content, created_at) " +
+                "values (?, ?, ?, ?, ?)", comments);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void migrationsAreApplied() {
+        assertEquals(List.of("1", "2", "3", "4"), jdbcTemplate.queryForList(
+                "select \"version\" from \"flyway_schema_history\" where \"type\" = 'SQL' and \"success\" order by \"installed_rank\"", String.class));
+    }
+
+    @Test
+    void taskListsReadTheirIndex() {
+        assertUsesIndex("TASK_AUTHOR_CREATED_IDX",
+                () -> taskRepository.findRowsByAuthorId(3L, NEWEST), 3L, 10);
+        assertUsesIndex("TASK_EXECUTOR_CREATED_IDX",
+                () -> taskRepository.findRowsByExecutorId(3L, NEWEST), 3L, 10);
+        assertUsesIndex("TASK_STATUS_CREATED_IDX",
+                () -> taskRepository.findRowsByStatus(Task.Status.ON_HOLD, NEWEST), "ON_HOLD", 10);
+        assertUsesIndex("TASK_PRIORITY_CREATED_IDX",
+                () -> taskRepository.findRowsByPriority(Task.Priority.LOW, NEWEST), "LOW", 10);
+    }
+
+    @Test
+    void criteriaQueriesHaveOnlyTheSuppliedPredicates() {
+        assertUsesIndex("TASK_AUTHOR_CREATED_IDX",
+                () -> taskRepository.findRows(TaskCriteria.of(3L, null, null, null), NEWEST), 3L, 10);
+        assertFalse(lastStatement().toLowerCase().contains("is null"), lastStatement());
+        assertUsesIndex("TASK_EXECUTOR_CREATED_IDX",
+                () -> taskRepository.findRows(TaskCriteria.of(null, 3L, null, null), NEWEST), 3L, 10);
+        assertUsesIndex("TASK_PRIORITY_CREATED_IDX",
+                () -> taskRepository.findRows(TaskCriteria.of(null, null, null, Task.Priority.LOW), NEWEST), "LOW", 10);
+    }
+
+    @Test
+    void recentlyActiveTasksAreReadInIndexOrder() {
+        assertUsesIndex("TASK_LAST_ACTIVITY_IDX",
+                () -> taskRepository.findRowsByRecentActivity(PageRequest.ofSize(10)), 10);
+    }
+
+    @Test
+    void commentListsReadTheirIndex() {
+        assertUsesIndex("COMMENT_TASK_CREATED_IDX",
+                () -> commentRepository.findRowsByTaskId(3L, NEWEST), 3L, 10);
+        assertUsesIndex("COMMENT_AUTHOR_CREATED_IDX",
+                () -> commentRepository.findRowsByAuthorId(3L, NEWEST), 3L, 10);
+    }
+
+    @Test
+    void keysetPagesReadTheirIndex() {
+        Timestamp cursor = Timestamp.from(Instant.now());
+        assertSeeksTo("COMMENT_TASK_CREATED_IDX", assertUsesIndex("COMMENT_TASK_CREATED_IDX",
+                () -> commentRepository.scrollRowsByTaskId(3L, cursor, 100L, PageRequest.ofSize(11)),
+                3L, cursor, cursor, 100L, 11));
+        assertSeeksTo("TASK_AUTHOR_CREATED_IDX", assertUsesIndex("TASK_AUTHOR_CREATED_IDX",
+                () -> taskRepository.scrollRows(TaskCriteria.of(3L, null, null, null), cursor, 100L, 11),
+                3L, cursor, cursor, 100L, 11));
+        assertFalse(lastStatement().toLowerCase().contains("is null"), lastStatement());
+        assertSeeksTo("TASK_CREATED_IDX", assertUsesIndex("TASK_CREATED_IDX",
+                () -> taskRepository.scrollRows(TaskCriteria.of(null, null, null, null), cursor, 100L, 11),
+                cursor, cursor, 100L, 11));
+    }
+
+    // the cursor bounds the index range itself rather than filtering every row read from it
+    private static void assertSeeksTo(String index, String plan) {
+        String condition = plan.replaceAll("\\s+", " ");
+        int start = condition.indexOf("/* PUBLIC." + index + ":");
+        assertTrue(start >= 0 && condition.substring(start, condition.indexOf("*/", start)).contains("CREATED_AT <="), plan);
+    }
+
+    // runs the query to capture its SQL, then explains that SQL with the given parameters
+    private String assertUsesIndex(String index, Runnable query, Object... parameters) {
+        CapturedSql.STATEMENTS.clear();
+        query.run();
+        String sql = lastStatement();
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        assertTrue(plan.contains("PUBLIC." + index), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+        return plan;
+    }
+
+    private static String lastStatement() {
+        return CapturedSql.STATEMENTS.get(CapturedSql.STATEMENTS.size() - 1);
+    }
+
+    public static class CapturedSql implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
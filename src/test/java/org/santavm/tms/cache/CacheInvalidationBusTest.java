@@ -0,0 +1,134 @@
+package org.santavm.tms.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationBusTest {
+
+    private LoopbackTransport transport;
+    private CacheInvalidationBus nodeA;
+    private CacheInvalidationBus nodeB;
+    private RecordingReceiver receiverA;
+    private RecordingReceiver receiverB;
+
+    @BeforeEach
+    void setUp() {
+        transport = new LoopbackTransport();
+        nodeA = new CacheInvalidationBus(transport, 100);
+        nodeB = new CacheInvalidationBus(transport, 100);
+        receiverA = new RecordingReceiver();
+        receiverB = new RecordingReceiver();
+        // long interval, the tests flush explicitly
+        nodeA.start(receiverA, Duration.ofHours(1));
+        nodeB.start(receiverB, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.destroy();
+        nodeB.destroy();
+    }
+
+    @Test
+    void evictionsAreBatchedDeduplicatedAndKeepKeyTypes() {
+        nodeA.publishEvict("tasks", 1L);
+        nodeA.publishEvict("tasks", 1L);
+        nodeA.publishEvict("users", "adm@site.com");
+        nodeA.publishDependents("user:2");
+        nodeA.flush();
+
+        assertEquals(List.of("evict tasks 1 Long", "evict users adm@site.com String", "dependents user:2"),
+                receiverB.received);
+        assertTrue(receiverA.received.isEmpty());  // own messages are ignored
+
+        Map<String, Object> stats = nodeA.getStats();
+        assertEquals(1L, stats.get("publishedMessages"));
+        assertEquals(1L, stats.get("deduplicated"));
+        assertEquals(1L, nodeB.getStats().get("receivedMessages"));
+        assertTrue((Long) nodeB.getStats().get("maxLagMillis") >= 0);
+    }
+
+    @Test
+    void clearSupersedesQueuedKeys() {
+        nodeA.publishEvict("tasks", 1L);
+        nodeA.publishClear("tasks");
+        nodeA.publishEvict("tasks", 2L);
+        nodeA.publishEvict("user_resp", 2L);
+        nodeA.flush();
+
+        assertEquals(List.of("clear tasks", "evict user_resp 2 Long"), receiverB.received);
+    }
+
+    @Test
+    void overflowTurnsIntoClearAll() {
+        for (long id = 0; id <= 100; id++) {
+            nodeA.publishEvict("tasks", id);
+        }
+        nodeA.flush();
+
+        assertEquals(List.of("clear all"), receiverB.received);
+    }
+
+    @Test
+    void unknownKeyTypeClearsTheCache() {
+        nodeA.publishEvict("tasks", new Object());
+        nodeA.flush();
+
+        assertEquals(List.of("clear tasks"), receiverB.received);
+    }
+
+    @Test
+    void prefixedDependenciesGoToTheirListener() {
+        List<String> versions = new ArrayList<>();
+        nodeB.onDependents("token_version:", versions::add);
+
+        nodeA.publishDependents("token_version:2:5");
+        nodeA.publishDependents("user:2");
+        nodeA.flush();
+        transport.publish("something else");
+
+        assertEquals(List.of("dependents user:2", "clear all"), receiverB.received);
+        // null: everything may have changed
+        assertEquals(Arrays.asList("2:5", null), versions);
+    }
+
+    @Test
+    void malformedMessageClearsAllCaches() {
+        transport.publish("something else");
+
+        assertEquals(List.of("clear all"), receiverB.received);
+    }
+
+    private static class RecordingReceiver implements CacheInvalidationBus.Receiver {
+        private final List<String> received = new ArrayList<>();
+
+        @Override
+        public void evictLocally(String cacheName, Object key) {
+            received.add("evict " + cacheName + " " + key + " " + key.getClass().getSimpleName());
+        }
+
+        @Override
+        public void clearLocally(String cacheName) {
+            received.add("clear " + cacheName);
+        }
+
+        @Override
+        public void evictDependentsLocally(String dependency) {
+            received.add("dependents " + dependency);
+        }
+
+        @Override
+        public void clearAllLocally() {
+            received.add("clear all");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.santavm.tms.cache;
+
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSizeEstimatorTest {
+
+    @Test
+    void estimateGrowsWithContent() {
+        assertEquals(0, CacheSizeEstimator.estimate(null));
+        assertEquals(CacheSizeEstimator.estimate("") + 1000, CacheSizeEstimator.estimate("x".repeat(1000)));
+        assertTrue(CacheSizeEstimator.estimate(List.of("a", "b")) > 2 * CacheSizeEstimator.estimate("a"));
+        assertTrue(CacheSizeEstimator.estimate(Map.of(1L, "x".repeat(100))) > 100);
+        assertEquals(16 + 8L * 10, CacheSizeEstimator.estimate(new long[10]));
+    }
+
+    @Test
+    void fieldsOfOwnClassesAreWalked() {
+        TaskResp small = new TaskResp();
+        small.setTitle("t");
+        TaskResp large = new TaskResp();
+        large.setTitle("t");
+        large.setDescription("x".repeat(10_000));
+
+        assertTrue(CacheSizeEstimator.estimate(large) - CacheSizeEstimator.estimate(small) >= 10_000);
+        assertEquals(0, CacheSizeEstimator.estimate(Task.Status.COMPLETED));  // shared constant
+    }
+
+    @Test
+    void cyclesAreCountedOnce() {
+        List<Object> list = new ArrayList<>();
+        list.add("x".repeat(100));
+        list.add(list);
+
+        long estimate = CacheSizeEstimator.estimate(list);
+        assertTrue(estimate > 100 && estimate < 300, String.valueOf(estimate));
+    }
+}
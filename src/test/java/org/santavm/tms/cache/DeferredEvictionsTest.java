@@ -0,0 +1,78 @@
+package org.santavm.tms.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.config.CacheProperties;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredEvictionsTest {
+
+    private final List<String> applied = new CopyOnWriteArrayList<>();
+    private DeferredEvictions evictions;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        evictions.destroy();
+    }
+
+    @Test
+    void evictionsOutsideTransactionAreImmediate() {
+        evictions = new DeferredEvictions(new CacheProperties());
+
+        evictions.run("tasks:1", () -> applied.add("tasks:1"));
+
+        assertEquals(List.of("tasks:1"), applied);
+    }
+
+    @Test
+    void evictionsInsideTransactionWaitForCompletionAndAreDeduplicated() {
+        evictions = new DeferredEvictions(new CacheProperties());
+        TransactionSynchronizationManager.initSynchronization();
+
+        evictions.run("tasks:1", () -> applied.add("tasks:1"));
+        evictions.run("user_resp:1", () -> applied.add("user_resp:1"));
+        evictions.run("tasks:1", () -> applied.add("tasks:1 again"));
+        assertTrue(applied.isEmpty());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(List.of("tasks:1", "user_resp:1"), applied);
+        assertEquals(1L, evictions.getStats().get("deduplicated"));
+        assertNull(TransactionSynchronizationManager.getResource(evictions));
+    }
+
+    @Test
+    void batchIsAppliedAgainAfterDoubleDeleteDelay() throws InterruptedException {
+        CacheProperties properties = new CacheProperties();
+        properties.setDoubleDeleteDelay(Duration.ofMillis(50));
+        evictions = new DeferredEvictions(properties);
+        TransactionSynchronizationManager.initSynchronization();
+
+        evictions.run("tasks:1", () -> applied.add("tasks:1"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(List.of("tasks:1"), applied);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (applied.size() < 2) {
+            assertTrue(System.currentTimeMillis() < deadline, "double delete was not applied");
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("tasks:1", "tasks:1"), applied);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,67 @@
+package org.santavm.tms.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.Benchmark;
+import org.santavm.tms.service.TaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Object cache + Jackson on every hit versus JSON bytes from the off-heap response cache.
+ * Run with: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.show-sql=false"})
+class IT_ResponseBodyCacheBenchmarkTest {
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void findOneHit() throws Exception {
+        // what Spring MVC does with a TaskResp body: serialize it on every request
+        Result objectCache = measure(() -> objectMapper.writeValueAsBytes(taskService.findOne(1L)));
+        Result bodyCache = measure(() -> responseBodyCache.respond("tasks", 1L, null, () -> taskService.findOne(1L)).getBody());
+
+        log.info(String.format("%-14s %14s %10s %10s", "", "bytes/op", "p50 ns", "p99 ns"));
+        log.info(String.format("%-14s %14d %10d %10d", "object cache", objectCache.bytesPerOp, objectCache.p50, objectCache.p99));
+        log.info(String.format("%-14s %14d %10d %10d", "response cache", bodyCache.bytesPerOp, bodyCache.p50, bodyCache.p99));
+
+        assertTrue(bodyCache.bytesPerOp < objectCache.bytesPerOp);
+    }
+
+    private Result measure(Callable<?> operation) throws Exception {
+        Benchmark.warmUp(WARMUP, operation);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        Benchmark.Latencies latencies = Benchmark.time(ITERATIONS, operation);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result(allocated / ITERATIONS, latencies.p50(), latencies.p99());
+    }
+
+    private record Result(long bytesPerOp, long p50, long p99) {
+    }
+}
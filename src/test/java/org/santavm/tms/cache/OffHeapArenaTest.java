@@ -0,0 +1,71 @@
+package org.santavm.tms.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapArenaTest {
+
+    private static byte[] bytes(int length, int fill) {
+        byte[] bytes = new byte[length];
+        java.util.Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+
+    @Test
+    void valuesAreReadBackWithTheirAttribute() {
+        OffHeapArena arena = new OffHeapArena(1024, 60_000);
+        arena.put("a", bytes(10, 1), "gzip");
+        arena.put("b", bytes(20, 2), null);
+
+        OffHeapArena.Stored a = arena.get("a");
+        assertArrayEquals(bytes(10, 1), a.bytes());
+        assertEquals("gzip", a.attribute());
+        assertArrayEquals(bytes(20, 2), arena.get("b").bytes());
+        assertNull(arena.get("c"));
+    }
+
+    @Test
+    void oldestValuesAreOverwrittenWhenTheRingWraps() {
+        OffHeapArena arena = new OffHeapArena(800, 60_000);  // values up to 100 bytes
+        for (int i = 0; i < 8; i++) {
+            arena.put(i, bytes(100, i), null);
+        }
+        arena.put(8, bytes(100, 8), null);
+
+        assertNull(arena.get(0));
+        for (int i = 1; i <= 8; i++) {
+            assertArrayEquals(bytes(100, i), arena.get(i).bytes(), "value " + i);
+        }
+        assertEquals(1L, arena.getStats().get("evictions"));
+        assertEquals(8, arena.getStats().get("entries"));
+    }
+
+    @Test
+    void replacedAndRemovedValuesAreNotReturned() {
+        OffHeapArena arena = new OffHeapArena(1024, 60_000);
+        arena.put("a", bytes(10, 1), null);
+        arena.put("a", bytes(12, 2), null);
+        arena.put("b", bytes(10, 3), null);
+        arena.remove("b");
+
+        assertArrayEquals(bytes(12, 2), arena.get("a").bytes());
+        assertNull(arena.get("b"));
+        assertEquals(12L, arena.getStats().get("liveBytes"));
+
+        arena.removeIf(key -> key.equals("a"));
+        assertNull(arena.get("a"));
+        assertEquals(0L, arena.getStats().get("liveBytes"));
+    }
+
+    @Test
+    void expiredAndTooLargeValuesAreNotReturned() throws InterruptedException {
+        OffHeapArena arena = new OffHeapArena(1024, 10);
+        assertFalse(arena.put("large", bytes(200, 1), null));
+        arena.put("a", bytes(10, 1), null);
+        Thread.sleep(20);
+
+        assertNull(arena.get("a"));
+        assertNull(arena.get("large"));
+    }
+}
@@ -0,0 +1,84 @@
+package org.santavm.tms.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBodyCacheTest {
+
+    private final ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper(), true,
+            DataSize.ofKilobytes(64), Duration.ofMinutes(1), DataSize.ofBytes(100));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Object load(String text) {
+        loads.incrementAndGet();
+        return Map.of("text", text);
+    }
+
+    @Test
+    void bodyIsRenderedOnceUntilEvicted() {
+        ResponseEntity<?> first = cache.respond("tasks", 1L, null, () -> load("one"));
+        ResponseEntity<?> second = cache.respond("tasks", 1L, null, () -> load("two"));
+
+        assertEquals("{\"text\":\"one\"}", new String((byte[]) second.getBody(), StandardCharsets.UTF_8));
+        assertArrayEquals((byte[]) first.getBody(), (byte[]) second.getBody());
+        assertEquals(1, loads.get());
+
+        cache.evicted("tasks", 1L);
+        ResponseEntity<?> third = cache.respond("tasks", 1L, null, () -> load("three"));
+        assertEquals("{\"text\":\"three\"}", new String((byte[]) third.getBody(), StandardCharsets.UTF_8));
+
+        cache.cleared("tasks");
+        cache.respond("tasks", 1L, null, () -> load("four"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void largeBodiesAreServedGzippedToClientsThatAcceptIt() throws IOException {
+        String text = "x".repeat(500);
+        String json = "{\"text\":\"" + text + "\"}";
+        cache.respond("user_resp", 1L, null, () -> load(text));
+
+        ResponseEntity<?> gzipped = cache.respond("user_resp", 1L, "gzip, deflate", () -> load(text));
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] body = (byte[]) gzipped.getBody();
+        assertTrue(body.length < json.length());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(json, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        ResponseEntity<?> plain = cache.respond("user_resp", 1L, null, () -> load(text));
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(json, new String((byte[]) plain.getBody(), StandardCharsets.UTF_8));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void bodyRenderedDuringAnEvictionIsNotStored() {
+        cache.respond("tasks", 1L, null, () -> {
+            cache.evicted("tasks", 1L);
+            return load("stale");
+        });
+        cache.respond("tasks", 2L, null, () -> {
+            // evictions of another cache do not matter
+            cache.evicted("missing", "task:2");
+            return load("two");
+        });
+
+        cache.respond("tasks", 1L, null, () -> load("fresh"));
+        cache.respond("tasks", 2L, null, () -> load("two again"));
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,92 @@
+package org.santavm.tms.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.util.ServiceOverloadedException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        encoder.destroy();
+    }
+
+    // hashes only once released
+    private PasswordEncoder blocking() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    @Test
+    void hashesOnThePoolAndKeepsDelegateResults() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        // answered by the delegate on the calling thread
+        assertFalse(encoder.upgradeEncoding(hash));
+        assertEquals(3L, encoder.getStats().get("completed"));
+    }
+
+    @Test
+    void callsBeyondPoolAndQueueAreRejected() throws Exception {
+        encoder = new BoundedPasswordEncoder(blocking(), 1, 1, Duration.ofSeconds(5));
+        // one hashing, one queued
+        Future<String> running = callers.submit(() -> encoder.encode("first"));
+        Future<String> queued = callers.submit(() -> encoder.encode("second"));
+        waitFor(() -> (int) encoder.getStats().get("queueDepth") == 1);
+
+        assertThrows(ServiceOverloadedException.class, () -> encoder.encode("third"));
+        assertEquals(1L, encoder.getStats().get("rejected"));
+
+        release.countDown();
+        assertEquals("hash:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:second", queued.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:fourth", encoder.encode("fourth"));
+    }
+
+    @Test
+    void callWaitingLongerThanTimeoutIsRejected() {
+        encoder = new BoundedPasswordEncoder(blocking(), 1, 1, Duration.ofMillis(50));
+
+        assertThrows(ServiceOverloadedException.class, () -> encoder.encode("slow"));
+        assertEquals(1L, encoder.getStats().get("rejected"));
+    }
+
+    private static void waitFor(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
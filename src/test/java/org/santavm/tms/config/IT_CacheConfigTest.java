@@ -0,0 +1,154 @@
+package org.santavm.tms.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.cache.CacheReporter;
+import org.santavm.tms.cache.ResponseBodyCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@AutoConfigureDataJpa
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@WithUserDetails(value = "adm@site.com", userDetailsServiceBeanName = "userDetailsService")
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_CacheConfigTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private CacheProperties properties;
+    @Autowired
+    private CacheReporter cacheReporter;
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    public void cleanup() {
+        SecurityContextHolder.clearContext();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache(String name) {
+        return (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+    }
+
+    @Test
+    void everyConfiguredCacheIsBoundedByItsSpec() {
+        properties.getSpecs().forEach((name, spec) -> {
+            Policy.Eviction<Object, Object> eviction = nativeCache(name).policy().eviction().orElseThrow();
+            if (spec.getMaximumWeight() != null) {
+                assertTrue(eviction.isWeighted(), name);
+                assertEquals(spec.getMaximumWeight().toBytes(), eviction.getMaximum(), name);
+            } else {
+                assertFalse(eviction.isWeighted(), name);
+                assertEquals(spec.getMaximumSize(), eviction.getMaximum(), name);
+            }
+        });
+    }
+
+    @Test
+    void sizeBoundIsEnforced() {
+        Cache<Object, Object> users = nativeCache("users");
+        long maximumSize = properties.getSpecs().get("users").getMaximumSize();
+        for (long i = 0; i < maximumSize * 3; i++) {
+            users.put("user" + i + "@site.com", "user " + i);
+        }
+        users.cleanUp();
+
+        assertTrue(users.estimatedSize() <= maximumSize, users.estimatedSize() + " > " + maximumSize);
+        assertTrue(users.stats().evictionCount() >= maximumSize * 2);
+    }
+
+    @Test
+    void weightBoundIsEnforced() {
+        Cache<Object, Object> tasks = nativeCache("tasks");
+        long maximumWeight = properties.getSpecs().get("tasks").getMaximumWeight().toBytes();
+        // about 10KB each, estimated by CacheSizeEstimator
+        String body = "x".repeat(10_000);
+        for (long id = 0; id < maximumWeight / 10_000 * 3; id++) {
+            tasks.put(id, body + id);
+        }
+        tasks.cleanUp();
+
+        long weighted = tasks.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertTrue(weighted <= maximumWeight, weighted + " > " + maximumWeight);
+        assertTrue(tasks.estimatedSize() * 10_000 <= maximumWeight);
+    }
+
+    @Test
+    void sizeEvictionDropsTheResponseBody() {
+        Cache<Object, Object> tasks = nativeCache("tasks");
+        Policy.Eviction<Object, Object> eviction = tasks.policy().eviction().orElseThrow();
+        tasks.put(1L, "cached");
+        responseBodyCache.respond("tasks", 1L, null, () -> tasks.getIfPresent(1L));
+
+        long maximum = eviction.getMaximum();
+        eviction.setMaximum(0);
+        try {
+            tasks.cleanUp();
+        } finally {
+            eviction.setMaximum(maximum);
+        }
+        assertNull(tasks.getIfPresent(1L));
+
+        // rendered again, not served from the arena
+        ResponseEntity<?> response = responseBodyCache.respond("tasks", 1L, null, () -> "reloaded");
+        assertEquals("\"reloaded\"", new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportMatchesCaches() throws Exception {
+        // statistics are kept since the context started
+        long hits = nativeCache("users").stats().hitCount();
+        long misses = nativeCache("users").stats().missCount();
+        nativeCache("users").put("adm@site.com", "admin");
+        nativeCache("users").getIfPresent("adm@site.com");
+        nativeCache("users").getIfPresent("usr@site.com");
+
+        Map<String, Object> report = cacheReporter.report();
+        assertEquals(cacheManager.getCacheNames().size(), report.size());
+        Map<String, Object> users = (Map<String, Object>) report.get("users");
+        assertEquals(1L, users.get("size"));
+        assertEquals(properties.getSpecs().get("users").getMaximumSize(), users.get("maximumSize"));
+        assertEquals(hits + 1, users.get("hits"));
+        assertEquals(misses + 1, users.get("misses"));
+        assertTrue((Long) users.get("estimatedBytes") > 0);
+        Map<String, Object> tasks = (Map<String, Object>) report.get("tasks");
+        assertEquals(properties.getSpecs().get("tasks").getMaximumWeight().toBytes(), tasks.get("maximumWeight"));
+        assertEquals(600L, tasks.get("expireAfterWriteSeconds"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.maximumSize", is(100)))
+                .andExpect(jsonPath("$.tasks.maximumWeight", is(1048576)))
+                .andExpect(jsonPath("$.missing.expireAfterWriteSeconds", is(30)));
+    }
+}
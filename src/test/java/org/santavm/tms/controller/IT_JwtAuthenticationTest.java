@@ -0,0 +1,194 @@
+package org.santavm.tms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.core.StringContains;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.AuthResponse;
+import org.santavm.tms.service.TokenRevocationService;
+import org.santavm.tms.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@AutoConfigureDataJpa
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)  // other tests may invalidate tokens of user 1
+class IT_JwtAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    private String login() throws Exception {
+        String loginCorrect = """
+                {
+                "email": "adm@site.com",
+                "password": "123"
+                }
+                """;
+        String body = mockMvc.perform(MockMvcRequestBuilders.post("/users/login")
+                        .content(loginCorrect)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, AuthResponse.class).getToken();
+    }
+
+    @Test
+    void whenValidToken_thenAuthenticatedFromClaims() throws Exception {
+        String token = login();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author", CoreMatchers.is("id: 1, name: Admin, surname: Admin")));
+    }
+
+    @Test
+    void whenTamperedToken_thenUnauthorized() throws Exception {
+        String token = login();
+        // change the payload, the signature stays the same
+        int payloadStart = token.indexOf('.') + 1;
+        char replacement = token.charAt(payloadStart) == 'a' ? 'b' : 'a';
+        String tampered = token.substring(0, payloadStart) + replacement + token.substring(payloadStart + 1);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)  // token versions are kept in memory
+    void whenUserUpdated_thenOldTokenRejected() throws Exception {
+        String token = login();
+        String user = """
+                {
+                "firstName": "Admin",
+                "lastName": "Admin",
+                "email": "adm@site.com",
+                "password": "1234",
+                "role": "ADMIN"
+                }
+                """;
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/users/update")
+                        .header("Authorization", "Bearer " + token)
+                        .content(user)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.content().string(StringContains.containsString("invalidated")));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)  // token versions are kept in memory
+    void whenUserUpdateRolledBack_thenTokensStillAccepted() throws Exception {
+        String token = login();
+        jdbcTemplate.update("insert into user_table (email, first_name, last_name, password, role, id) "
+                + "values ('other@site.com', 'Other', 'Other', 'x', 'USER', 2)");
+        // the email of the other user, the update fails on the unique constraint
+        String user = """
+                {
+                "firstName": "Admin",
+                "lastName": "Admin",
+                "email": "other@site.com",
+                "password": "1234",
+                "role": "ADMIN"
+                }
+                """;
+
+        assertThrows(Exception.class, () -> mockMvc.perform(MockMvcRequestBuilders.put("/users/update")
+                .header("Authorization", "Bearer " + token)
+                .content(user)
+                .contentType(MediaType.APPLICATION_JSON)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + login()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)  // revocations are kept in memory
+    void whenUserDeletionRolledBack_thenTokensStillAccepted() throws Exception {
+        String token = login();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.deleteUser(1L);
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertEquals(0, revocationService.getStats().get("entries"));
+    }
+
+    @Test
+    void whenWeakHash_thenUpgradedOnLogin() throws Exception {
+        jdbcTemplate.update("update user_table set password = ? where id = 1", new BCryptPasswordEncoder(4).encode("123"));
+
+        login();
+
+        String upgraded = jdbcTemplate.queryForObject("select password from user_table where id = 1", String.class);
+        assertTrue(upgraded.startsWith("$2a$10$"), upgraded);
+        assertTrue(new BCryptPasswordEncoder().matches("123", upgraded));
+        login();
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)  // revocations are kept in memory
+    void whenLoggedOut_thenTokenRevoked() throws Exception {
+        String token = login();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/users/logout")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.content().string(StringContains.containsString("revoked")));
+    }
+}
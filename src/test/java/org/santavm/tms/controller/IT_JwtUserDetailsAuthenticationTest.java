@@ -0,0 +1,90 @@
+package org.santavm.tms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.core.StringContains;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.AuthResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the principal is loaded through UserDetailsService instead of the token claims
+@AutoConfigureMockMvc
+@AutoConfigureDataJpa
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "app.jwt.stateless-principal=false"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)  // other tests may invalidate tokens of user 1
+class IT_JwtUserDetailsAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String login() throws Exception {
+        String loginCorrect = """
+                {
+                "email": "adm@site.com",
+                "password": "123"
+                }
+                """;
+        String body = mockMvc.perform(MockMvcRequestBuilders.post("/users/login")
+                        .content(loginCorrect)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, AuthResponse.class).getToken();
+    }
+
+    @Test
+    void whenValidToken_thenAuthenticatedFromUserDetails() throws Exception {
+        String token = login();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author", CoreMatchers.is("id: 1, name: Admin, surname: Admin")));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)  // token versions are kept in memory
+    void whenUserUpdated_thenOldTokenRejected() throws Exception {
+        String token = login();
+        String user = """
+                {
+                "firstName": "Admin",
+                "lastName": "Admin",
+                "email": "adm@site.com",
+                "password": "1234",
+                "role": "ADMIN"
+                }
+                """;
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/users/update")
+                        .header("Authorization", "Bearer " + token)
+                        .content(user)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.content().string(StringContains.containsString("invalidated")));
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithAnonymousUser;
@@ -15,11 +16,15 @@ import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -107,6 +112,33 @@ class IT_TaskControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.author", CoreMatchers.is("id: 1, name: Admin, surname: Admin")));
     }
 
+    @Test
+    void findOneAfterUpdate() throws Exception {
+        // the first read puts the JSON into the response cache, the update must evict it
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title", CoreMatchers.is("The first task")));
+
+        String task = """
+                {
+                "title": "Updated Task",
+                "description": "First description",
+                "status": "COMPLETED",
+                "priority": "HIGH",
+                "executorId": "1"
+                }
+                """;
+        mockMvc.perform(MockMvcRequestBuilders.put("/tasks/{id}/update", 1)
+                        .content(task)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title", CoreMatchers.is("Updated Task")));
+    }
+
     @Test
     void findAllEagerly() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/tasks/all")
@@ -126,4 +158,112 @@ class IT_TaskControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(unauthenticated());
     }
-}
\ No newline at end of file
+
+    @Test
+    void scrollTasks() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/scroll")
+                        .param("status", "COMPLETED")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].author").value("id: 1, name: Admin, surname: Admin"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").doesNotExist());
+
+        // the same filters as /tasks/criteria
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/scroll")
+                        .param("status", "ON_HOLD,COMPLETED")
+                        .param("createdFrom", "2000-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/scroll")
+                        .param("status", "ON_HOLD,COMPLETED")
+                        .param("createdTo", "2000-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items").isEmpty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/scroll")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(StringContains.containsString("Invalid cursor")));
+    }
+
+    @Test
+    void findByCriteria() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/criteria")
+                        .param("status", "ON_HOLD,COMPLETED")
+                        .param("createdFrom", "2000-01-01T00:00:00Z")
+                        .param("sort", "lastActivityAt,desc"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1]").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/criteria")
+                        .param("sort", "title"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(StringContains.containsString("can not be sorted by title")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/criteria")
+                        .param("createdFrom", "2000-01-02T00:00:00Z")
+                        .param("createdTo", "2000-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importTasks() throws Exception {
+        String body = """
+                {"title": "Imported task", "description": "Test import", "status": "ON_HOLD", "priority": "LOW", "executorId": 1}
+                not json
+                """;
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tasks/import")
+                        .content(body)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.failed").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    void updateTasks() throws Exception {
+        String update = """
+                {"filter": {"status": ["COMPLETED"]}, "set": {"priority": "LOW"}}
+                """;
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/tasks/bulk-update")
+                        .content(update)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[1]"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/tasks/bulk-update")
+                        .content("{\"filter\": {}, \"set\": {}}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(StringContains.containsString("Nothing to change")));
+    }
+
+    @Test
+    void exportTasks() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/tasks/export")
+                        .param("format", "csv")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.startsWith("id,title,"));
+            assertTrue(csv.contains("\n1,The first task,"));
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tasks/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
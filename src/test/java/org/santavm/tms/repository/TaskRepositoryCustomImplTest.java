@@ -0,0 +1,32 @@
+package org.santavm.tms.repository;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the H2 statement runs in every bulk update test, the PostgreSQL one is checked here as text
+class TaskRepositoryCustomImplTest {
+
+    @Test
+    void dialectIsResolvedToItsStatement() {
+        assertEquals(TaskRepositoryCustomImpl.ReturningOld.POSTGRESQL,
+                TaskRepositoryCustomImpl.ReturningOld.of(new PostgreSQLDialect()));
+        assertEquals(TaskRepositoryCustomImpl.ReturningOld.H2,
+                TaskRepositoryCustomImpl.ReturningOld.of(new H2Dialect()));
+        assertThrows(UnsupportedOperationException.class,
+                () -> TaskRepositoryCustomImpl.ReturningOld.of(new MySQLDialect()));
+    }
+
+    @Test
+    void postgresqlReturnsTheRowsLockedBeforeTheUpdate() {
+        String sql = TaskRepositoryCustomImpl.ReturningOld.POSTGRESQL.sql("status = ?1", "author_id = ?2 AND (status <> ?3)");
+
+        assertEquals("UPDATE task t SET status = ?1"
+                + " FROM (SELECT id, author_id, executor_id, status, priority FROM task"
+                + " WHERE author_id = ?2 AND (status <> ?3) FOR UPDATE) prev"
+                + " WHERE t.id = prev.id RETURNING prev.id, prev.author_id, prev.executor_id, prev.status, prev.priority", sql);
+    }
+}
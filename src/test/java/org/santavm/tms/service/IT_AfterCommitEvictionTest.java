@@ -0,0 +1,140 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.cache.DeferredEvictions;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "app.cache.double-delete-delay=500ms"})  // the default of application.yml, off in the test profile
+class IT_AfterCommitEvictionTest {
+
+    private static final AuthUser ADMIN = new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DeferredEvictions deferredEvictions;
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    // a double delete scheduled by one method would otherwise evict in the middle of the next one
+    @AfterEach
+    public void awaitDoubleDeletes() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pendingDoubleDeletes() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, deferredEvictions.getStats().toString());
+            Thread.sleep(20);
+        }
+    }
+
+    private long pendingDoubleDeletes() {
+        Map<String, Object> stats = deferredEvictions.getStats();
+        return (long) stats.get("batches") + (long) stats.get("immediate") - (long) stats.get("doubleDeletes");
+    }
+
+    @Test
+    void readerBeforeCommitDoesNotLeaveStaleEntries() throws Exception {
+        Authentication auth = new UsernamePasswordAuthenticationToken(ADMIN, null, ADMIN.getAuthorities());
+        taskService.findOne(2L);
+        userService.getById(2L);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                taskService.updateTask(2L, new TaskReq("Renamed task", "Second description",
+                        Task.Status.ON_HOLD, Task.Priority.LOW, 2L), auth);
+                // the update is not committed yet, a concurrent miss loads and caches the old row
+                List<String> seen = this.read(reader);
+                assertEquals(List.of("The second task", "id: 2, title: The second task"), seen);
+            });
+        } finally {
+            reader.shutdown();
+        }
+
+        // evicted after the commit, so the entries cached in between are gone
+        assertEquals("Renamed task", taskService.findOne(2L).getTitle());
+        assertTrue(userService.getById(2L).getAsExecutor().contains("id: 2, title: Renamed task"));
+    }
+
+    @Test
+    void oldRowPutAfterTheEvictionIsEvictedAgain() throws Exception {
+        Authentication auth = new UsernamePasswordAuthenticationToken(ADMIN, null, ADMIN.getAuthorities());
+        Cache tasks = cacheManager.getCache("tasks");
+        // a reader loads the row before the commit ...
+        Object loadedBeforeCommit = taskService.findOne(2L);
+        tasks.clear();
+
+        taskService.updateTask(2L, new TaskReq("Renamed task", "Second description",
+                Task.Status.ON_HOLD, Task.Priority.LOW, 2L), auth);
+        // ... and puts it once the eviction after the commit has run
+        tasks.put(2L, loadedBeforeCommit);
+        assertEquals("The second task", taskService.findOne(2L).getTitle());
+
+        // app.cache.double-delete-delay applies the eviction once more
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tasks.get(2L) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("Renamed task", taskService.findOne(2L).getTitle());
+    }
+
+    @Test
+    void rolledBackTransactionStillEvicts() {
+        Authentication auth = new UsernamePasswordAuthenticationToken(ADMIN, null, ADMIN.getAuthorities());
+        taskService.findOne(2L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            taskService.updateTask(2L, new TaskReq("Renamed task", "Second description",
+                    Task.Status.ON_HOLD, Task.Priority.LOW, 2L), auth);
+            assertNotNull(cacheManager.getCache("tasks").get(2L));  // not evicted before completion
+            status.setRollbackOnly();
+        });
+
+        assertNull(cacheManager.getCache("tasks").get(2L));
+        assertEquals("The second task", taskService.findOne(2L).getTitle());
+    }
+
+    private List<String> read(ExecutorService reader) {
+        try {
+            return reader.submit(() -> {
+                cacheManager.getCache("tasks").clear();
+                cacheManager.getCache("user_resp").clear();
+                return List.of(taskService.findOne(2L).getTitle(), userService.getById(2L).getAsExecutor().get(0));
+            }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
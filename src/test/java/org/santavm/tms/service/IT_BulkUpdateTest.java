@@ -0,0 +1,133 @@
+package org.santavm.tms.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.TaskBulkUpdate;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.santavm.tms.util.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class IT_BulkUpdateTest {
+
+    private static final Authentication ADMIN = auth(new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0));
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        // task 1 is authored and executed by user 1, task 2 is authored by user 1 and executed by user 2,
+        // task 3 is authored and executed by user 2
+        jdbcTemplate.update("insert into task (id, title, description, status, priority, author_id, executor_id, created_at) "
+                + "values (3, 'The third task', 'Third description', 'ON_HOLD', 'REGULAR', 2, 2, current_timestamp)");
+    }
+
+    @Test
+    void executorChangesStatusOfExecutedAndAuthoredTasks() {
+        // cached before the update
+        assertEquals(List.of(2L, 3L), ids(taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE)));
+        assertEquals(Task.Status.ON_HOLD, taskService.findOne(2L).getStatus());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Long> updated = taskService.updateAll(update(filter(null, null, Task.Status.ON_HOLD),
+                new TaskBulkUpdate.Change(Task.Status.IN_PROGRESS, null, null)), USER);
+
+        assertEquals(List.of(2L, 3L), updated.stream().sorted().toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).isEmpty());
+        assertEquals(List.of(2L, 3L), ids(taskService.findAllByStatus(Task.Status.IN_PROGRESS, PAGE)));
+        assertEquals(Task.Status.IN_PROGRESS, taskService.findOne(2L).getStatus());
+        // task 1 is neither authored nor executed by user 2
+        assertEquals(Task.Status.COMPLETED, taskService.findOne(1L).getStatus());
+
+        // tasks already in the status are left out
+        assertTrue(taskService.updateAll(update(filter(null, null, null),
+                new TaskBulkUpdate.Change(Task.Status.IN_PROGRESS, null, null)), USER).isEmpty());
+    }
+
+    @Test
+    void executorChangesOtherFieldsOfAuthoredTasksOnly() {
+        List<Long> updated = taskService.updateAll(update(filter(null, 2L, null),
+                new TaskBulkUpdate.Change(null, Task.Priority.HIGH, null)), USER);
+
+        assertEquals(List.of(3L), updated);
+        assertEquals(Task.Priority.LOW, taskService.findOne(2L).getPriority());
+        assertEquals(Task.Priority.HIGH, taskService.findOne(3L).getPriority());
+    }
+
+    @Test
+    void authorReassignsTheWorkOfAnExecutor() {
+        assertEquals(List.of(2L, 3L), ids(taskService.findAllByExecutorId(2L, PAGE)));
+        assertEquals(List.of(1L), ids(taskService.findAllByExecutorId(1L, PAGE)));
+
+        List<Long> updated = taskService.updateAll(update(filter(null, 2L, null),
+                new TaskBulkUpdate.Change(null, null, 1L)), ADMIN);
+
+        assertEquals(List.of(2L), updated);
+        assertEquals(List.of(3L), ids(taskService.findAllByExecutorId(2L, PAGE)));
+        assertEquals(List.of(1L, 2L), ids(taskService.findAllByExecutorId(1L, PAGE)));
+        assertEquals(1L, jdbcTemplate.queryForObject("select executor_id from task where id = 2", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from task where id = 2 "
+                + "and updated_at = last_activity_at", Integer.class));
+    }
+
+    @Test
+    void emptyChangeAndMissingExecutorAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> taskService.updateAll(update(filter(null, null, null),
+                new TaskBulkUpdate.Change(null, null, null)), ADMIN));
+        assertThrows(NotFoundException.class, () -> taskService.updateAll(update(filter(null, null, null),
+                new TaskBulkUpdate.Change(null, null, 404L)), ADMIN));
+        assertEquals(1L, jdbcTemplate.queryForObject("select executor_id from task where id = 1", Long.class));
+    }
+
+    private static TaskBulkUpdate update(TaskBulkUpdate.Filter filter, TaskBulkUpdate.Change change) {
+        return new TaskBulkUpdate(filter, change);
+    }
+
+    private static TaskBulkUpdate.Filter filter(Long authorId, Long executorId, Task.Status status) {
+        return new TaskBulkUpdate.Filter(authorId, executorId, status == null ? null : List.of(status), null);
+    }
+
+    private static List<Long> ids(List<TaskResp> page) {
+        return page.stream().map(TaskResp::getId).sorted().toList();
+    }
+}
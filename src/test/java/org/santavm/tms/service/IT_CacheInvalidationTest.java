@@ -0,0 +1,120 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.dto.UserReq;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_CacheInvalidationTest {
+
+    private static final Authentication ADMIN = auth(new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0));
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void warmUp() {
+        // tables are recreated for every test, cached entries of previous tests are stale
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        taskService.findOne(1L);
+        taskService.findOne(2L);
+        userService.getById(1L);
+        userService.getById(2L);
+    }
+
+    @Test
+    void updateTaskTitleEvictsOnlyUsersListingIt() {
+        taskService.updateTask(2L, new TaskReq("Renamed task", "Second description",
+                Task.Status.ON_HOLD, Task.Priority.LOW, 2L), ADMIN);
+
+        assertFalse(isCached("tasks", 2L));
+        assertFalse(isCached("user_resp", 1L));  // author
+        assertFalse(isCached("user_resp", 2L));  // executor
+        assertTrue(isCached("tasks", 1L));
+
+        assertTrue(userService.getById(2L).getAsExecutor().contains("id: 2, title: Renamed task"));
+    }
+
+    @Test
+    void updateTaskExecutorEvictsNewExecutor() {
+        // task 1 is not listed in UserResp of user 2 yet
+        taskService.updateTask(1L, new TaskReq("The first task", "First description",
+                Task.Status.COMPLETED, Task.Priority.HIGH, 2L), ADMIN);
+
+        assertFalse(isCached("user_resp", 2L));
+        assertTrue(isCached("tasks", 2L));
+
+        assertTrue(userService.getById(2L).getAsExecutor().contains("id: 1, title: The first task"));
+        assertTrue(userService.getById(1L).getAsExecutor().isEmpty());
+        assertTrue(taskService.findOne(1L).getExecutor().contains("name: User"));
+    }
+
+    @Test
+    void updateUserEvictsTasksEmbeddingTheName() {
+        userService.updateUser(new UserReq("Renamed", "User", "usr@site.com", "password", User.Role.USER), USER);
+
+        assertFalse(isCached("tasks", 2L));
+        assertFalse(isCached("user_resp", 2L));
+        assertTrue(isCached("user_resp", 1L));
+
+        assertTrue(taskService.findOne(2L).getExecutor().contains("name: Renamed"));
+    }
+
+    @Test
+    void deleteUserEvictsExecutedAndCommentedTasks() {
+        userService.deleteUser(2L);
+
+        assertFalse(isCached("tasks", 2L));
+        assertFalse(isCached("tasks", 1L));  // the comment of user 2 is removed
+        assertFalse(isCached("user_resp", 2L));
+        assertTrue(isCached("user_resp", 1L));
+
+        assertEquals("no executor assigned", taskService.findOne(2L).getExecutor());
+        assertEquals("1 comment(s)", taskService.findOne(1L).getComments());
+    }
+
+    @Test
+    void deleteTaskEvictsCommentAuthors() {
+        taskService.deleteTask(1L, ADMIN);
+
+        assertFalse(isCached("tasks", 1L));
+        assertFalse(isCached("user_resp", 2L));  // commented task 1
+        assertTrue(isCached("tasks", 2L));
+
+        assertEquals(List.of(), userService.getById(2L).getComments());
+    }
+
+    private boolean isCached(String cacheName, Long key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache != null && cache.get(key) != null;
+    }
+}
@@ -0,0 +1,178 @@
+package org.santavm.tms.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.cache.specs.tasks.refresh-after-write=200ms",
+        "app.cache.specs.tasks.expire-after-write=1h"})
+class IT_CacheLoadingTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Time.runTasks();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void concurrentMissesRunOneLoader() throws Exception {
+        statistics.clear();
+        taskService.findOne(1L);
+        long singleLoad = statistics.getPrepareStatementCount();
+        cacheManager.getCache("tasks").clear();
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        statistics.clear();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return taskService.findOne(1L).getTitle();
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("The first task", result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(singleLoad, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void staleValueIsServedWhileRefreshingAndWhileDatabaseIsDown() {
+        taskService.findOne(1L);
+        // changed behind the service's back, only a refresh can see it
+        jdbcTemplate.update("update task set title = 'Renamed' where id = 1");
+        assertEquals("The first task", taskService.findOne(1L).getTitle());
+        Time.advance(Duration.ofMillis(300));
+
+        // the first read after refresh-after-write gets the old value and starts the reload
+        assertEquals("The first task", taskService.findOne(1L).getTitle());
+        assertEquals("The first task", taskService.findOne(1L).getTitle());
+        Time.runTasks();
+        assertEquals("Renamed", taskService.findOne(1L).getTitle());
+
+        jdbcTemplate.update("update task set title = 'Renamed again' where id = 1");
+        jdbcTemplate.execute("alter table task rename to task_unavailable");
+        try {
+            // every reload fails, the value stays
+            for (int i = 0; i < 3; i++) {
+                Time.advance(Duration.ofMillis(300));
+                assertEquals("Renamed", taskService.findOne(1L).getTitle());
+                Time.runTasks();
+                assertEquals("Renamed", taskService.findOne(1L).getTitle());
+            }
+        } finally {
+            jdbcTemplate.execute("alter table task_unavailable rename to task");
+        }
+        Time.advance(Duration.ofMillis(300));
+        assertEquals("Renamed", taskService.findOne(1L).getTitle());
+        Time.runTasks();
+        assertEquals("Renamed again", taskService.findOne(1L).getTitle());
+    }
+
+    // Caffeine reads the time from here and queues its reloads here, the test decides when a refresh is due and runs
+    @TestConfiguration
+    static class Time {
+        private static final AtomicLong NANOS = new AtomicLong();
+        private static final Queue<Runnable> TASKS = new ConcurrentLinkedQueue<>();
+
+        static void advance(Duration duration) {
+            NANOS.addAndGet(duration.toNanos());
+        }
+
+        // reloads and cache maintenance, on the test thread
+        static void runTasks() {
+            Runnable task;
+            while ((task = TASKS.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Bean
+        Ticker cacheTicker() {
+            return NANOS::get;
+        }
+
+        @Bean(destroyMethod = "shutdown")
+        @Primary
+        ExecutorService queueingExecutor() {
+            return new AbstractExecutorService() {
+                private volatile boolean shutdown;
+
+                @Override
+                public void execute(Runnable command) {
+                    TASKS.add(command);
+                }
+
+                @Override
+                public void shutdown() {
+                    shutdown = true;
+                }
+
+                @Override
+                public List<Runnable> shutdownNow() {
+                    shutdown = true;
+                    return List.of();
+                }
+
+                @Override
+                public boolean isShutdown() {
+                    return shutdown;
+                }
+
+                @Override
+                public boolean isTerminated() {
+                    return shutdown;
+                }
+
+                @Override
+                public boolean awaitTermination(long timeout, TimeUnit unit) {
+                    return true;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.santavm.tms.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.CommentReq;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// creating a task or a comment costs the same however many tasks or comments the parents already have
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class IT_CreatePathTest {
+
+    private static final Authentication ADMIN = auth(new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0));
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void commentCreateDoesNotLoadCommentsOfTheTaskOrTheAuthor() {
+        this.createComment(2L);  // the first insert fetches a block of ids
+        long quietTask = this.createComment(2L);
+
+        // task 1 and user 2 get 100 more comments, task 2 stays quiet
+        for (long id = 100; id < 200; id++) {
+            jdbcTemplate.update("insert into comment (id, task_id, author_id, content, created_at) " +
+                    "values (?, 1, 2, 'busy', current_timestamp)", id);
+        }
+        long busyTask = this.createComment(1L);
+
+        assertEquals(quietTask, busyTask);
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    @Test
+    void taskCreateDoesNotLoadTasksOfTheAuthorOrTheExecutor() {
+        this.createTask();  // the first insert fetches a block of ids
+        long first = this.createTask();
+
+        for (long id = 100; id < 200; id++) {
+            jdbcTemplate.update("insert into task (id, title, description, status, priority, author_id, executor_id, created_at) " +
+                    "values (?, 'busy', 'busy', 'ON_HOLD', 'LOW', 2, 1, current_timestamp)", id);
+        }
+        long busyUsers = this.createTask();
+
+        assertEquals(first, busyUsers);
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    @Test
+    void executorChangeDoesNotLoadTasksOfTheOldExecutor() {
+        for (long id = 100; id < 200; id++) {
+            jdbcTemplate.update("insert into task (id, title, description, status, priority, author_id, executor_id, created_at) " +
+                    "values (?, 'busy', 'busy', 'ON_HOLD', 'LOW', 1, 2, current_timestamp)", id);
+        }
+        statistics.clear();
+
+        // task 2 goes from user 2 to nobody, task 1 from user 1 to user 2
+        taskService.updateTask(2L, new TaskReq("The second task", "Second description",
+                Task.Status.ON_HOLD, Task.Priority.LOW, null), ADMIN);
+        taskService.updateTask(1L, new TaskReq("The first task", "First description",
+                Task.Status.COMPLETED, Task.Priority.HIGH, 2L), ADMIN);
+
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertNull(jdbcTemplate.queryForObject("select executor_id from task where id = 2", Long.class));
+        assertEquals(2L, jdbcTemplate.queryForObject("select executor_id from task where id = 1", Long.class));
+    }
+
+    // statements run to create a comment by user 2 on the task
+    private long createComment(Long taskId) {
+        CommentReq comment = new CommentReq();
+        comment.setTaskId(taskId);
+        comment.setContent("one more");
+        statistics.clear();
+        commentService.create(comment, USER);
+        assertEquals(1, statistics.getEntityLoadCount());  // the task, its status and executor are listed on pages
+        return statistics.getPrepareStatementCount();
+    }
+
+    // statements run to create a task by user 2 executed by user 1
+    private long createTask() {
+        statistics.clear();
+        taskService.createTask(new TaskReq("New task", "description", Task.Status.ON_HOLD, Task.Priority.LOW, 1L), USER);
+        assertEquals(1, statistics.getEntityLoadCount());  // the executor, it has to exist
+        return statistics.getPrepareStatementCount();
+    }
+}
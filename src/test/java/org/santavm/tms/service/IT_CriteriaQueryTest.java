@@ -0,0 +1,108 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_CriteriaQueryTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        // task 10 + i was created i days ago and updated i hours ago, statuses and priorities rotate
+        for (int i = 0; i < 6; i++) {
+            jdbcTemplate.update("insert into task (id, title, description, status, priority, author_id, executor_id, " +
+                            "created_at, updated_at, comment_count) values (?, 'title', 'description', ?, ?, ?, ?, ?, ?, ?)",
+                    10 + i, Task.Status.values()[i % 3].name(), Task.Priority.values()[i % 3].name(),
+                    i % 2 + 1, i % 2 == 0 ? null : 1, Timestamp.from(NOW.minus(i, ChronoUnit.DAYS)),
+                    Timestamp.from(NOW.minus(i, ChronoUnit.HOURS)), 5 - i);
+        }
+        jdbcTemplate.update("delete from comment");
+        jdbcTemplate.update("delete from task where id < 10");
+    }
+
+    @Test
+    void onlySuppliedFiltersApply() {
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L, 15L), ids(TaskCriteria.of(null, null, null, null), PAGE));
+        assertEquals(List.of(11L, 13L, 15L), ids(TaskCriteria.of(2L, null, null, null), PAGE));
+        assertEquals(List.of(11L, 13L, 15L), ids(TaskCriteria.of(null, 1L, null, null), PAGE));
+        assertEquals(List.of(13L), ids(TaskCriteria.of(2L, 1L, Task.Status.ON_HOLD, Task.Priority.HIGH), PAGE));
+    }
+
+    @Test
+    void multiValueFiltersAndRanges() {
+        TaskCriteria statuses = TaskCriteria.of(null, null, Set.of(Task.Status.ON_HOLD, Task.Status.COMPLETED), null,
+                null, null, null, null);
+        assertEquals(List.of(10L, 12L, 13L, 15L), ids(statuses, PAGE));
+
+        TaskCriteria priorities = TaskCriteria.of(1L, null, null, Set.of(Task.Priority.REGULAR, Task.Priority.LOW),
+                null, null, null, null);
+        assertEquals(List.of(12L, 14L), ids(priorities, PAGE));
+
+        // created from 3 days ago inclusive to 1 day ago exclusive
+        TaskCriteria created = TaskCriteria.of(null, null, null, null,
+                Date.from(NOW.minus(3, ChronoUnit.DAYS)), Date.from(NOW.minus(1, ChronoUnit.DAYS)), null, null);
+        assertEquals(List.of(12L, 13L), ids(created, PAGE));
+
+        TaskCriteria updated = TaskCriteria.of(null, null, Set.of(Task.Status.ON_HOLD), null,
+                null, null, Date.from(NOW.minus(4, ChronoUnit.HOURS)), null);
+        assertEquals(List.of(10L, 13L), ids(updated, PAGE));
+
+        assertThrows(IllegalArgumentException.class, () -> TaskCriteria.of(null, null, null, null,
+                Date.from(NOW), Date.from(NOW), null, null));
+    }
+
+    @Test
+    void sortKeysAreWhitelisted() {
+        TaskCriteria all = TaskCriteria.of(null, null, null, null);
+        assertEquals(List.of(15L, 14L, 13L, 12L, 11L, 10L),
+                ids(all, PageRequest.of(0, 20, Sort.by("createdAt"))));
+        assertEquals(List.of(15L, 14L, 13L, 12L, 11L, 10L),
+                ids(all, PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "commentCount"))));
+        assertEquals(List.of(13L, 12L), ids(all, PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "id"))));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.findByCriteria(all, PageRequest.of(0, 20, Sort.by("title"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.findByCriteria(all, PageRequest.of(0, 20, Sort.by("updatedAt"))));
+    }
+
+    private List<Long> ids(TaskCriteria criteria, Pageable pageable) {
+        return taskService.findByCriteria(criteria, pageable).stream().map(TaskResp::getId).toList();
+    }
+}
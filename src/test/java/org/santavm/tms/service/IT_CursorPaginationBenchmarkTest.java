@@ -0,0 +1,83 @@
+package org.santavm.tms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.Benchmark;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.util.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Offset pages versus keyset pages, on the first page and on page 10,000.
+ * Run with: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.show-sql=false"})
+class IT_CursorPaginationBenchmarkTest {
+    private static final int SIZE = 10;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int ROWS = (DEEP_PAGE + 1) * SIZE;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deepPage() throws Exception {
+        // only the generated tasks, so positions are known
+        jdbcTemplate.update("delete from comment");
+        jdbcTemplate.update("delete from task");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 10; id < 10 + ROWS; id++) {
+            rows.add(new Object[]{"Task " + id, Timestamp.valueOf(start.plusSeconds(id)), id});
+        }
+        jdbcTemplate.batchUpdate("insert into task (author_id, priority, status, title, created_at, id) " +
+                "values (1, 'LOW', 'ON_HOLD', ?, ?, ?)", rows);
+        jdbcTemplate.execute("create index if not exists task_created_at_id_idx on task (created_at, id)");
+
+        Pageable firstPage = PageRequest.of(0, SIZE, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        Pageable deepPage = firstPage.withPage(DEEP_PAGE);
+        // the last task of page 9,999 in (createdAt desc, id desc) order
+        long lastId = 10L + ROWS - DEEP_PAGE * SIZE;
+        String deepCursor = Cursor.after(Timestamp.valueOf(start.plusSeconds(lastId)), lastId).encode();
+        assertEquals(taskService.loadByCriteria(TaskCriteria.of(null, null, null, null), deepPage).get(0).getId(),
+                taskService.scroll(TaskCriteria.of(null, null, null, null), deepCursor, SIZE).items().get(0).getId());
+
+        long offsetFirst = Benchmark.median(ITERATIONS, () -> taskService.loadByCriteria(TaskCriteria.of(null, null, null, null), firstPage));
+        long offsetDeep = Benchmark.median(ITERATIONS, () -> taskService.loadByCriteria(TaskCriteria.of(null, null, null, null), deepPage));
+        long keysetFirst = Benchmark.median(ITERATIONS, () -> taskService.scroll(TaskCriteria.of(null, null, null, null), null, SIZE));
+        long keysetDeep = Benchmark.median(ITERATIONS, () -> taskService.scroll(TaskCriteria.of(null, null, null, null), deepCursor, SIZE));
+
+        log.info(String.format("%-8s %14s %14s", "", "page 1 p50 us", "page 10k p50 us"));
+        log.info(String.format("%-8s %14.1f %14.1f", "offset", offsetFirst / 1000.0, offsetDeep / 1000.0));
+        log.info(String.format("%-8s %14.1f %14.1f", "keyset", keysetFirst / 1000.0, keysetDeep / 1000.0));
+
+        assertTrue(keysetDeep < offsetDeep);
+        assertTrue(keysetDeep < keysetFirst * 3, "a deep keyset page should cost about as much as the first one");
+    }
+}
@@ -0,0 +1,121 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.CommentResp;
+import org.santavm.tms.dto.CursorPage;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_CursorPaginationTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void insertRows() {
+        // ids 10..34, five of them share every created_at, so the id breaks the ties
+        for (long id = 10; id < 35; id++) {
+            Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(id / 5));
+            jdbcTemplate.update("insert into task (author_id, priority, status, title, created_at, id) " +
+                    "values (2, 'LOW', 'ON_HOLD', ?, ?, ?)",
+                    "Task " + id, createdAt, id);
+            jdbcTemplate.update("insert into comment (author_id, content, created_at, task_id, id) " +
+                    "values (2, 'content', ?, 2, ?)", createdAt, id);
+        }
+    }
+
+    @Test
+    void tasksAreScrolledNewestFirstWithoutGapsOrRepeats() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<TaskResp> page = taskService.scroll(TaskCriteria.of(2L, null, Task.Status.ON_HOLD, null), cursor, 7);
+            page.items().forEach(task -> ids.add(task.getId()));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(LongStream.rangeClosed(10, 34).map(id -> 44 - id).boxed().toList(), ids);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void tasksAreScrolledByTheCriteriaOfFindByCriteria() {
+        jdbcTemplate.update("update task set status = 'COMPLETED' where id = 20");
+        jdbcTemplate.update("update task set status = 'IN_PROGRESS' where id = 21");
+        // created_at of ids 15..24
+        TaskCriteria criteria = TaskCriteria.of(null, null, Set.of(Task.Status.ON_HOLD, Task.Status.COMPLETED), null,
+                Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0, 3)),
+                Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0, 5)), null, null);
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TaskResp> page = taskService.scroll(criteria, cursor, 4);
+            page.items().forEach(task -> ids.add(task.getId()));
+            cursor = page.next();
+        } while (cursor != null);
+
+        assertEquals(List.of(24L, 23L, 22L, 20L, 19L, 18L, 17L, 16L, 15L), ids);
+    }
+
+    @Test
+    void rowsInsertedAfterTheFirstPageDoNotShiftTheNextOne() {
+        CursorPage<TaskResp> first = taskService.scroll(TaskCriteria.of(2L, null, null, null), null, 10);
+        // newer than everything, an offset page 2 would repeat the last item of page 1
+        jdbcTemplate.update("insert into task (author_id, priority, status, title, created_at, id) " +
+                "values (2, 'LOW', 'ON_HOLD', 'Newest', current_timestamp, 100)");
+
+        CursorPage<TaskResp> second = taskService.scroll(TaskCriteria.of(2L, null, null, null), first.next(), 10);
+
+        assertEquals(25L, first.items().get(9).getId());
+        assertEquals(24L, second.items().get(0).getId());
+    }
+
+    @Test
+    void commentsAreScrolledByTaskAndAuthor() {
+        CursorPage<CommentResp> byTask = commentService.scrollByTaskId(2L, null, 20);
+        CursorPage<CommentResp> rest = commentService.scrollByTaskId(2L, byTask.next(), 20);
+        CursorPage<CommentResp> byAuthor = commentService.scrollByAuthorId(2L, null, 100);
+
+        assertEquals(20, byTask.items().size());
+        assertEquals(5, rest.items().size());
+        assertNull(rest.next());
+        assertEquals(34L, byTask.items().get(0).getId());
+        // and the comment of task 1 made today
+        assertEquals(26, byAuthor.items().size());
+        assertEquals(2L, byAuthor.items().get(0).getId());
+    }
+
+    @Test
+    void invalidCursorAndSizeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> taskService.scroll(TaskCriteria.of(null, null, null, null), "garbage", 10));
+        assertThrows(IllegalArgumentException.class, () -> taskService.scroll(TaskCriteria.of(null, null, null, null), null, 0));
+        assertThrows(IllegalArgumentException.class, () -> commentService.scrollByTaskId(1L, null, CursorPage.MAX_SIZE + 1));
+    }
+}
@@ -0,0 +1,130 @@
+package org.santavm.tms.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.TaskCriteria;
+import org.santavm.tms.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class IT_ExportTest {
+
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Object[]> tasks = new ArrayList<>();
+        for (long id = 100; id < 1100; id++) {
+            tasks.add(new Object[]{id, "Exported, \"" + id + "\""});
+        }
+        jdbcTemplate.batchUpdate("insert into task (id, title, description, status, priority, author_id, created_at) " +
+                "values (?, ?, 'exported', 'ON_HOLD', 'LOW', 2, current_timestamp)", tasks);
+    }
+
+    @Test
+    void matchingTasksAreWrittenAsNdjsonInIdOrder() throws IOException {
+        statistics.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportTasks(TaskCriteria.of(2L, null, Task.Status.ON_HOLD, null),
+                ExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1000, rows);
+        assertEquals(1000, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":100,\"title\":\"Exported, \\\"100\\\"\""), lines[0]);
+        assertTrue(lines[999].startsWith("{\"id\":1099,"), lines[999]);
+        // rows are projections, nothing is loaded into the persistence context
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void csvHasHeaderAndQuotedValues() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportTasks(TaskCriteria.of(null, 2L, null, null), ExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,title,description,status,priority,authorId,authorFirstName,authorLastName,"
+                + "executorId,executorFirstName,executorLastName,createdAt,updatedAt,commentCount,lastActivityAt", lines[0]);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("2,The second task,Second description,ON_HOLD,LOW,1,Admin,Admin,2,User,User,"), lines[1]);
+
+        out.reset();
+        exportService.exportTasks(TaskCriteria.of(null, null, null, Task.Priority.LOW), ExportService.Format.CSV, out);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\n100,\"Exported, \"\"100\"\"\",exported,"));
+    }
+
+    @Test
+    void csvTextIsNeverAFormula() throws IOException {
+        jdbcTemplate.update("insert into task (id, title, description, status, priority, author_id, created_at) " +
+                "values (2000, '=HYPERLINK(\"http://site.com\", \"open\")', '@SUM(A1:A9)', 'COMPLETED', 'HIGH', 1, current_timestamp)");
+        jdbcTemplate.update("insert into task (id, title, description, status, priority, author_id, created_at) " +
+                "values (2001, '+1', '-1', 'COMPLETED', 'HIGH', 1, current_timestamp)");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportTasks(TaskCriteria.of(1L, null, Task.Status.COMPLETED, Task.Priority.HIGH), ExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[2].startsWith("2000,\"'=HYPERLINK(\"\"http://site.com\"\", \"\"open\"\")\",'@SUM(A1:A9),"), lines[2]);
+        assertTrue(lines[3].startsWith("2001,'+1,'-1,COMPLETED,HIGH,1,"), lines[3]);
+    }
+
+    @Test
+    void commentsAreExportedByTaskOrAuthor() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, exportService.exportComments(1L, null, ExportService.Format.NDJSON, out));
+        assertEquals(1, exportService.exportComments(null, 2L, ExportService.Format.NDJSON, new ByteArrayOutputStream()));
+        assertEquals(2, exportService.exportComments(null, null, ExportService.Format.NDJSON, new ByteArrayOutputStream()));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"taskTitle\":\"The first task\""));
+    }
+
+    @Test
+    void exportStopsWhenTheClientIsGone() throws IOException {
+        OutputStream disconnected = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++written > 32 * 1024) throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> exportService.exportTasks(
+                TaskCriteria.of(null, null, null, null), ExportService.Format.NDJSON, disconnected));
+        // the cursor was closed and its connection returned, the next export runs as usual
+        assertEquals(1002, exportService.exportTasks(TaskCriteria.of(null, null, null, null),
+                ExportService.Format.NDJSON, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,128 @@
+package org.santavm.tms.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.CommentResp;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.dto.UserReq;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class IT_ListProjectionTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void taskListsLoadNoEntities() {
+        List<List<TaskResp>> pages = List.of(
+                taskService.findAllByAuthorId(1L, PAGE),
+                taskService.findAllByExecutorId(2L, PAGE),
+                taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE),
+                taskService.findAllByPriority(Task.Priority.LOW, PAGE),
+                taskService.findByCriteria(1L, null, null, null, PAGE));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of(1L, 2L), pages.get(0).stream().map(TaskResp::getId).toList());
+        for (List<TaskResp> page : pages.subList(1, pages.size() - 1)) {
+            TaskResp task = page.get(0);
+            assertEquals(2L, task.getId());
+            assertEquals("id: 1, name: Admin, surname: Admin", task.getAuthor());
+            assertEquals("id: 2, name: User, surname: User", task.getExecutor());
+            assertNotEquals("not updated", task.getCreatedAt());
+        }
+    }
+
+    @Test
+    void fullTasksArePagedOverIdsWithCommentCounts() {
+        List<TaskResp> first = taskService.findFullTasks(PageRequest.of(0, 1, Sort.by("id")));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(2, statistics.getPrepareStatementCount());  // ids, rows of the ids
+        assertEquals(List.of(1L), first.stream().map(TaskResp::getId).toList());
+        assertEquals("2 comment(s)", first.get(0).getComments());
+        assertEquals("id: 1, name: Admin, surname: Admin", first.get(0).getExecutor());
+
+        TaskResp second = taskService.findFullTasks(PageRequest.of(1, 1, Sort.by("id"))).get(0);
+        assertEquals(2L, second.getId());
+        assertEquals("0 comment(s)", second.getComments());
+        assertEquals("id: 2, name: User, surname: User", second.getExecutor());
+
+        List<TaskResp> newestFirst = taskService.findFullTasks(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id")));
+        assertEquals(List.of(2L, 1L), newestFirst.stream().map(TaskResp::getId).toList());
+        assertTrue(taskService.findFullTasks(PageRequest.of(1, 20, Sort.by("id"))).isEmpty());
+    }
+
+    @Test
+    void commentListsLoadNoEntities() {
+        List<CommentResp> byTask = commentService.findAllByTaskId(1L, PAGE);
+        List<CommentResp> byAuthor = commentService.findAllByAuthorId(2L, PAGE);
+        List<CommentResp> all = commentService.findAllBy(PAGE);
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of(1L, 2L), byTask.stream().map(CommentResp::getId).toList());
+        assertEquals("id: 2, name: User, surname: User", byAuthor.get(0).getAuthor());
+        assertEquals("id: 1, title: The first task", byAuthor.get(0).getTask());
+        assertEquals("not updated", byAuthor.get(0).getUpdatedAt());
+        assertEquals(2, all.size());
+    }
+
+    @Test
+    void renamedUserIsShownOnCachedPages() {
+        assertEquals("id: 2, name: User, surname: User",
+                taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).get(0).getExecutor());
+
+        AuthUser user = new AuthUser(2L, "usr@site.com", User.Role.USER, 0);
+        Authentication auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        userService.updateUser(new UserReq("Renamed", "User", "usr@site.com", "password", User.Role.USER), auth);
+
+        assertEquals("id: 2, name: Renamed, surname: User",
+                taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).get(0).getExecutor());
+        assertEquals("id: 2, name: Renamed, surname: User",
+                commentService.findAllByTaskId(1L, PAGE).get(1).getAuthor());
+    }
+}
@@ -0,0 +1,95 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.cache.NegativeCache;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.dto.UserReq;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.santavm.tms.util.NotFoundException;
+import org.santavm.tms.util.UserNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_NegativeCacheTest {
+
+    private static final AuthUser ADMIN = new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private NegativeCache negativeCache;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void missingTaskIsNotQueriedAgainUntilCreated() {
+        Authentication auth = new UsernamePasswordAuthenticationToken(ADMIN, null, ADMIN.getAuthorities());
+        // ids come from a pooled sequence, the next one follows the last created
+        Long nextId = this.createTask(auth).getId() + 1;
+
+        NotFoundException e = assertThrows(NotFoundException.class, () -> taskService.findOne(nextId));
+        assertEquals(0, e.getStackTrace().length);
+        assertTrue(negativeCache.isMissing(NegativeCache.task(nextId)));
+
+        // a row written behind the service's back stays invisible, so the database is not asked
+        jdbcTemplate.update("insert into task (author_id, priority, status, title, id) values (1, 'LOW', 'ON_HOLD', 'hidden', ?)", nextId);
+        assertThrows(NotFoundException.class, () -> taskService.findOne(nextId));
+        jdbcTemplate.update("delete from task where id = ?", nextId);
+
+        Task created = this.createTask(auth);
+        assertEquals(nextId, created.getId());
+        assertFalse(negativeCache.isMissing(NegativeCache.task(nextId)));
+        assertEquals("New task", taskService.findOne(nextId).getTitle());
+    }
+
+    @Test
+    void missingUserAndEmailAreForgottenOnRegister() {
+        Long nextId = userService.register(this.userReq("first@site.com")) + 1;
+
+        assertThrows(NotFoundException.class, () -> userService.getById(nextId));
+        UserNotFoundException e = assertThrows(UserNotFoundException.class,
+                () -> userDetailsService.loadUserByUsername("new@site.com"));
+        assertEquals(0, e.getStackTrace().length);
+
+        Long id = userService.register(this.userReq("new@site.com"));
+
+        assertEquals(nextId, id);
+        assertEquals("new@site.com", userService.getById(nextId).getEmail());
+        assertEquals("new@site.com", userDetailsService.loadUserByUsername("new@site.com").getUsername());
+    }
+
+    private Task createTask(Authentication auth) {
+        return taskService.createTask(new TaskReq("New task", "description", Task.Status.ON_HOLD, Task.Priority.LOW, null), auth);
+    }
+
+    private UserReq userReq(String email) {
+        return new UserReq("New", "User", email, "password", User.Role.USER);
+    }
+}
@@ -0,0 +1,127 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.CommentReq;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.santavm.tms.util.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_QueryCacheTest {
+
+    private static final Authentication ADMIN = auth(new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0));
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void pagesAreServedFromCacheUntilTheirDimensionIsBumped() {
+        assertEquals(List.of(2L), ids(taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE)));
+        assertEquals(List.of(2L), ids(taskService.findAllByPriority(Task.Priority.LOW, PAGE)));
+        assertEquals(List.of(1L), ids(taskService.findByCriteria(null, null, Task.Status.COMPLETED, null, PAGE)));
+
+        // changed behind the service's back, cached pages do not see it
+        jdbcTemplate.update("update task set status = 'COMPLETED' where id = 2");
+        assertEquals(List.of(2L), ids(taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE)));
+        jdbcTemplate.update("update task set status = 'ON_HOLD' where id = 2");
+
+        // the executor moves task 2 from ON_HOLD to IN_PROGRESS
+        taskService.updateTask(2L, new TaskReq("The second task", "Second description",
+                Task.Status.IN_PROGRESS, Task.Priority.LOW, 2L), USER);
+
+        assertTrue(taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).isEmpty());
+        assertEquals(List.of(2L), ids(taskService.findAllByStatus(Task.Status.IN_PROGRESS, PAGE)));
+        assertEquals(Task.Status.IN_PROGRESS, taskService.findAllByPriority(Task.Priority.LOW, PAGE).get(0).getStatus());
+        // other statuses are not touched
+        jdbcTemplate.update("update task set title = 'Hidden' where id = 1");
+        assertEquals("The first task",
+                taskService.findByCriteria(null, null, Task.Status.COMPLETED, null, PAGE).get(0).getTitle());
+    }
+
+    @Test
+    void pageKeysIncludePageableAndFilters() {
+        assertEquals(List.of(1L, 2L), ids(taskService.findAllByAuthorId(1L, PageRequest.of(0, 20))));
+        assertEquals(List.of(1L), ids(taskService.findAllByAuthorId(1L, PageRequest.of(0, 1))));
+        assertEquals(List.of(2L), ids(taskService.findAllByAuthorId(1L, PageRequest.of(1, 1))));
+        assertEquals(List.of(2L), ids(taskService.findByCriteria(1L, 2L, null, null, PAGE)));
+        assertTrue(taskService.findByCriteria(2L, null, null, null, PAGE).isEmpty());
+
+        Task created = taskService.createTask(new TaskReq("New task", "description",
+                Task.Status.ON_HOLD, Task.Priority.LOW, 2L), USER);
+
+        assertEquals(List.of(created.getId()), ids(taskService.findByCriteria(2L, null, null, null, PAGE)));
+        assertEquals(Set.of(2L, created.getId()), Set.copyOf(ids(taskService.findAllByExecutorId(2L, PAGE))));
+        assertEquals(List.of(1L, 2L), ids(taskService.findAllByAuthorId(1L, PAGE)));
+        assertEquals(3, taskService.findByCriteria(null, null, null, null, PAGE).size());
+    }
+
+    @Test
+    void missingAuthorIsReportedAndNotCached() {
+        assertThrows(NotFoundException.class, () -> taskService.findAllByAuthorId(404L, PAGE));
+        assertThrows(NotFoundException.class, () -> taskService.findAllByExecutorId(404L, PAGE));
+    }
+
+    @Test
+    void commentPagesAreBumpedByCommentWritesAndTaskDelete() {
+        assertEquals(2, commentService.findAllByTaskId(1L, PAGE).size());
+        assertTrue(commentService.findAllByTaskId(2L, PAGE).isEmpty());
+
+        CommentReq comment = new CommentReq();
+        comment.setTaskId(2L);
+        comment.setContent("new comment");
+        commentService.create(comment, USER);
+
+        assertEquals(1, commentService.findAllByTaskId(2L, PAGE).size());
+        // task 1 was not touched
+        jdbcTemplate.update("delete from comment where id = 2");
+        assertEquals(2, commentService.findAllByTaskId(1L, PAGE).size());
+
+        taskService.deleteTask(1L, ADMIN);
+
+        assertTrue(commentService.findAllByTaskId(1L, PAGE).isEmpty());
+    }
+
+    private static List<Long> ids(List<TaskResp> page) {
+        return page.stream().map(TaskResp::getId).toList();
+    }
+}
@@ -0,0 +1,104 @@
+package org.santavm.tms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.Benchmark;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rebuilding the search index over 1M tasks, and queries against it versus a LIKE scan of the table.
+ * Run with: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = "classpath:createTables.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.show-sql=false"})
+class IT_SearchBenchmarkTest {
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH = 10_000;
+    private static final int ITERATIONS = 200;
+    private static final int SCAN_ITERATIONS = 10;
+    private static final String[] WORDS = {"login", "page", "report", "export", "invoice", "budget", "deploy",
+            "server", "database", "backup", "review", "release", "customer", "ticket", "payment", "search",
+            "mobile", "android", "cache", "timeout", "migration", "schema", "design", "meeting", "contract",
+            "onboarding", "security", "password", "dashboard", "metrics", "alert", "latency", "refund", "shipping",
+            "warehouse", "supplier", "audit", "compliance", "training", "hiring"};
+
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void millionTasks() throws Exception {
+        // only the generated tasks, so match counts are known
+        jdbcTemplate.update("delete from comment");
+        jdbcTemplate.update("delete from task");
+        Random random = new Random(42);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        int needles = 0;
+        for (long id = 10; id < 10 + ROWS; id++) {
+            // one task in ten thousand mentions the rare word
+            boolean needle = id % 10_000 == 0;
+            if (needle) needles++;
+            String title = words(random, 3) + (needle ? " kubernetes" : "");
+            rows.add(new Object[]{title, words(random, 12), now, id});
+            if (rows.size() == BATCH) {
+                this.insert(rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) this.insert(rows);
+
+        long start = System.nanoTime();
+        assertTrue(searchService.rebuild());
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(needles, searchService.search("kubernetes", null, 0, 10).total());
+
+        long indexRare = Benchmark.median(ITERATIONS, () -> searchService.search("kubernetes", null, 0, 10));
+        long indexCommon = Benchmark.median(ITERATIONS, () -> searchService.search("invoice payment", null, 0, 10));
+        long scanRare = Benchmark.median(SCAN_ITERATIONS, () -> jdbcTemplate.queryForList(
+                "select id from task where lower(title) like '%kubernetes%' or lower(description) like '%kubernetes%' "
+                        + "order by created_at desc limit 10", Long.class));
+
+        log.info(String.format("rebuild of %,d tasks: %,d ms, %s", ROWS, rebuildMillis, searchService.getStats()));
+        log.info(String.format("%-24s %14s", "", "p50 us"));
+        log.info(String.format("%-24s %14.1f", "index, rare term", indexRare / 1000.0));
+        log.info(String.format("%-24s %14.1f", "index, two common terms", indexCommon / 1000.0));
+        log.info(String.format("%-24s %14.1f", "LIKE scan, rare term", scanRare / 1000.0));
+
+        assertTrue(indexRare * 10 < scanRare, "the index should answer a rare term far faster than a scan");
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into task (author_id, priority, status, title, description, created_at, id) "
+                + "values (1, 'LOW', 'ON_HOLD', ?, ?, ?, ?)", rows);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
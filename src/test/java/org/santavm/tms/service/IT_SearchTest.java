@@ -0,0 +1,168 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.CommentReq;
+import org.santavm.tms.dto.SearchPage;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Comment;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.santavm.tms.util.SearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_SearchTest {
+
+    private static final Authentication ADMIN = auth(new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0));
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private TaskImportService importService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        // the index may hold documents of earlier tests in the same context
+        assertTrue(searchService.rebuild());
+    }
+
+    @Test
+    void rebuildReadsTasksAndComments() {
+        SearchPage page = searchService.search("second", null, 0, 10);
+        assertTrue(page.complete());
+        assertEquals(List.of("task:2"), keys(page));
+        assertEquals("The second task", page.hits().get(0).label());
+
+        SearchPage comments = searchService.search("content", SearchIndex.Kind.COMMENT, 0, 10);
+        assertEquals(2, comments.total());
+        assertEquals(1L, comments.hits().get(0).taskId());
+
+        // changed behind the service's back, seen after the next rebuild only
+        jdbcTemplate.update("update task set title = 'Renamed' where id = 2");
+        assertEquals(1, searchService.search("second", null, 0, 10).total());
+        searchService.rebuild();
+        assertEquals(List.of("task:2"), keys(searchService.search("renamed", null, 0, 10)));
+    }
+
+    @Test
+    void writePathsUpdateTheIndex() {
+        Task created = taskService.createTask(new TaskReq("Quarterly budget", "Prepare the spreadsheet",
+                Task.Status.ON_HOLD, Task.Priority.LOW, 2L), ADMIN);
+        assertEquals(List.of("task:" + created.getId()), keys(searchService.search("budget", null, 0, 10)));
+
+        taskService.updateTask(created.getId(), new TaskReq("Yearly budget", "Prepare the spreadsheet",
+                Task.Status.ON_HOLD, Task.Priority.LOW, 2L), ADMIN);
+        assertEquals(0, searchService.search("quarterly", null, 0, 10).total());
+        assertEquals("Yearly budget", searchService.search("yearly", null, 0, 10).hits().get(0).label());
+
+        Comment comment = commentService.create(comment(created.getId(), "Numbers from finance"), USER);
+        assertEquals(List.of("comment:" + comment.getId()), keys(searchService.search("finance", null, 0, 10)));
+        commentService.update(comment.getId(), comment(created.getId(), "Numbers from sales"), USER);
+        assertEquals(0, searchService.search("finance", null, 0, 10).total());
+        assertEquals(1, searchService.search("sales", null, 0, 10).total());
+
+        commentService.deleteOne(comment.getId(), USER);
+        assertEquals(0, searchService.search("sales", null, 0, 10).total());
+
+        commentService.create(comment(created.getId(), "Spreadsheet attached"), USER);
+        assertEquals(2, searchService.search("spreadsheet", null, 0, 10).total());
+        taskService.deleteTask(created.getId(), ADMIN);
+        assertEquals(0, searchService.search("spreadsheet budget", null, 0, 10).total());
+    }
+
+    @Test
+    void rolledBackChangesAndImportedTasks() throws IOException {
+        transactionTemplate.executeWithoutResult(status -> {
+            taskService.createTask(new TaskReq("Abandoned", "never committed",
+                    Task.Status.ON_HOLD, Task.Priority.LOW, null), ADMIN);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, searchService.search("abandoned", null, 0, 10).total());
+
+        String body = """
+                {"title": "Imported invoice", "description": "first", "status": "ON_HOLD", "priority": "LOW"}
+                {"title": "Imported receipt", "description": "second", "status": "ON_HOLD", "priority": "LOW"}
+                """;
+        importService.importTasks(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), USER);
+        assertEquals(2, searchService.search("imported", SearchIndex.Kind.TASK, 0, 10).total());
+        assertEquals(1, searchService.search("invoice", null, 0, 10).total());
+    }
+
+    @Test
+    void changesOfOtherInstancesAreReadAnew() {
+        // as received over the cache bus, the other instance has already committed them
+        jdbcTemplate.update("update task set title = 'Renamed elsewhere' where id = 2");
+        searchService.receiveChange("task:2");
+        assertEquals(List.of("task:2"), keys(searchService.search("elsewhere", null, 0, 10)));
+
+        jdbcTemplate.update("insert into comment (author_id, content, created_at, task_id, id) "
+                + "values (2, 'Remote remark', current_timestamp, 2, 50)");
+        searchService.receiveChange("comment:50");
+        assertEquals(List.of("comment:50"), keys(searchService.search("remark", null, 0, 10)));
+
+        jdbcTemplate.update("delete from comment where id = 50");
+        searchService.receiveChange("comment:50");
+        assertEquals(0, searchService.search("remark", null, 0, 10).total());
+
+        // user 2 wrote comment 2 on task 1
+        searchService.receiveChange("user:2");
+        assertEquals(1, searchService.search("content", SearchIndex.Kind.COMMENT, 0, 10).total());
+        jdbcTemplate.update("delete from comment where task_id = 1");
+        jdbcTemplate.update("delete from task where id = 1");
+        searchService.receiveChange("task:1");
+        assertEquals(0, searchService.search("content first", null, 0, 10).total());
+    }
+
+    @Test
+    void emptyQueriesAndDeepPagesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> searchService.search(" ", null, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("task", null, 100, 10));
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("task", null, 0, 0));
+        // only stop words, nothing to look up
+        assertEquals(0, searchService.search("the", null, 0, 10).total());
+    }
+
+    private static CommentReq comment(Long taskId, String content) {
+        CommentReq comment = new CommentReq();
+        comment.setTaskId(taskId);
+        comment.setContent(content);
+        return comment;
+    }
+
+    private static List<String> keys(SearchPage page) {
+        return page.hits().stream().map(hit -> hit.kind() + ":" + hit.id()).toList();
+    }
+}
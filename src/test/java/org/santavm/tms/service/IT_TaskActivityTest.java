@@ -0,0 +1,121 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.CommentReq;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Comment;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false"})  // exclude DataLoader
+class IT_TaskActivityTest {
+
+    private static final Authentication ADMIN = auth(new AuthUser(1L, "adm@site.com", User.Role.ADMIN, 0));
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        // task 1 was active a day ago, task 2 an hour ago
+        jdbcTemplate.update("update task set last_activity_at = dateadd('DAY', -1, current_timestamp) where id = 1");
+        jdbcTemplate.update("update task set last_activity_at = dateadd('HOUR', -1, current_timestamp) where id = 2");
+    }
+
+    @Test
+    void commentsAreCountedOnEveryTaskResponse() {
+        // cached before the comments change
+        assertEquals("2 comment(s)", taskService.findOne(1L).getComments());
+        assertEquals("0 comment(s)", taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).get(0).getComments());
+
+        Comment created = commentService.create(comment(2L, "first on task 2"), ADMIN);
+        commentService.create(comment(2L, "second on task 2"), USER);
+
+        assertEquals("2 comment(s)", taskService.findOne(2L).getComments());
+        assertEquals("2 comment(s)", taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).get(0).getComments());
+        assertEquals("2 comment(s)", taskService.findFullTasks(PageRequest.of(1, 1, Sort.by("id"))).get(0).getComments());
+
+        commentService.deleteOne(created.getId(), ADMIN);
+
+        assertEquals("1 comment(s)", taskService.findOne(2L).getComments());
+        assertEquals("1 comment(s)", taskService.findAllByStatus(Task.Status.ON_HOLD, PAGE).get(0).getComments());
+        assertEquals(1, jdbcTemplate.queryForObject("select comment_count from task where id = 2", Integer.class));
+    }
+
+    @Test
+    void commentsAndUpdatesMoveTaskToTheTopOfRecentlyActive() {
+        assertEquals(List.of(2L, 1L), ids(taskService.findRecentlyActive(PAGE)));
+
+        commentService.create(comment(1L, "task 1 again"), USER);
+        assertEquals(List.of(1L, 2L), ids(taskService.findRecentlyActive(PAGE)));
+        TaskResp task = taskService.findOne(1L);
+        assertEquals(task.getLastActivityAt(), taskService.findRecentlyActive(PAGE).get(0).getLastActivityAt());
+
+        // the executor moves task 2 on
+        taskService.updateTask(2L, new TaskReq("The second task", "Second description",
+                Task.Status.IN_PROGRESS, Task.Priority.LOW, 2L), USER);
+        assertEquals(List.of(2L, 1L), ids(taskService.findRecentlyActive(PAGE)));
+
+        jdbcTemplate.update("update task set last_activity_at = dateadd('DAY', -2, current_timestamp) where id = 2");
+        commentService.update(2L, comment(1L, "edited"), USER);
+        assertEquals(List.of(1L, 2L), ids(taskService.findRecentlyActive(PAGE)));
+    }
+
+    @Test
+    void commentsOfDeletedUserAreNotCounted() {
+        assertEquals("2 comment(s)", taskService.findOne(1L).getComments());
+
+        userService.deleteUser(2L);
+
+        assertEquals("1 comment(s)", taskService.findOne(1L).getComments());
+        assertEquals(1, jdbcTemplate.queryForObject("select comment_count from task where id = 1", Integer.class));
+    }
+
+    private static CommentReq comment(Long taskId, String content) {
+        CommentReq comment = new CommentReq();
+        comment.setTaskId(taskId);
+        comment.setContent(content);
+        return comment;
+    }
+
+    private static List<Long> ids(List<TaskResp> page) {
+        return page.stream().map(TaskResp::getId).toList();
+    }
+}
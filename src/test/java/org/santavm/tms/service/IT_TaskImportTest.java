@@ -0,0 +1,134 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.ImportReport;
+import org.santavm.tms.dto.TaskReq;
+import org.santavm.tms.dto.TaskResp;
+import org.santavm.tms.model.AuthUser;
+import org.santavm.tms.model.Task;
+import org.santavm.tms.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "app.import.chunk-size=2",
+        "app.import.max-line-length=200"})
+class IT_TaskImportTest {
+
+    private static final Authentication USER = auth(new AuthUser(2L, "usr@site.com", User.Role.USER, 0));
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private TaskImportService importService;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static Authentication auth(AuthUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void wrongLinesAreReportedAndTheRestIsImported() throws IOException {
+        String body = """
+                {"title": "Imported 1", "description": "first", "status": "ON_HOLD", "priority": "LOW", "executorId": 2}
+                {"title": "Broken", "description":
+
+                {"title": "x", "description": "too short title", "status": "ON_HOLD", "priority": "LOW"}
+                {"title": "Imported 2", "description": "unknown executor", "status": "ON_HOLD", "priority": "LOW", "executorId": 404}
+                {"title": "Imported 3", "description": "no executor", "status": "COMPLETED", "priority": "HIGH"}
+                {"title": "Imported 4", "description": "last", "status": "IN_PROGRESS", "priority": "REGULAR", "executorId": 1}
+                """;
+
+        ImportReport report = importService.importTasks(stream(body), USER);
+
+        assertEquals(3, report.imported());
+        assertEquals(3, report.failed());
+        assertEquals(List.of(2L, 4L, 5L), report.errors().stream().map(ImportReport.LineError::line).toList());
+        assertTrue(report.errors().get(0).message().startsWith("Malformed JSON"));
+        assertEquals("title: size must be between 3 and 255", report.errors().get(1).message());
+        assertEquals("There is no User with executorId: 404", report.errors().get(2).message());
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select title, author_id, executor_id, comment_count, "
+                + "created_at, last_activity_at from task where author_id = 2 order by id");
+        assertEquals(List.of("Imported 1", "Imported 3", "Imported 4"), rows.stream().map(row -> row.get("TITLE")).toList());
+        assertNull(rows.get(1).get("EXECUTOR_ID"));
+        for (Map<String, Object> row : rows) {
+            assertEquals(0, row.get("COMMENT_COUNT"));
+            assertEquals(row.get("CREATED_AT"), row.get("LAST_ACTIVITY_AT"));
+        }
+    }
+
+    @Test
+    void overlongLineIsReportedAndSkippedToItsEnd() throws IOException {
+        String body = "{\"title\": \"Imported 1\", \"description\": \"crlf\", \"status\": \"ON_HOLD\", \"priority\": \"LOW\"}\r\n"
+                + "{\"title\": \"Huge\", \"description\": \"" + "x".repeat(100_000) + "\"}\r\n"
+                + "{\"title\": \"Imported 2\", \"description\": \"crlf\", \"status\": \"ON_HOLD\", \"priority\": \"LOW\"}";
+
+        ImportReport report = importService.importTasks(stream(body), USER);
+
+        assertEquals(2, report.imported());
+        assertEquals(List.of(new ImportReport.LineError(2, "Line longer than 200 characters")), report.errors());
+        assertEquals(List.of("Imported 1", "Imported 2"), jdbcTemplate.queryForList(
+                "select title from task where author_id = 2 order by id", String.class));
+    }
+
+    @Test
+    void importedTasksShareTheSequenceAndBumpListPages() throws IOException {
+        assertEquals(List.of(2L), ids(taskService.findAllByExecutorId(2L, PAGE)));
+        assertEquals(2, taskService.findByCriteria(null, null, null, null, PAGE).size());
+
+        String body = """
+                {"title": "Imported 1", "description": "first", "status": "ON_HOLD", "priority": "LOW", "executorId": 2}
+                {"title": "Imported 2", "description": "second", "status": "ON_HOLD", "priority": "LOW"}
+                {"title": "Imported 3", "description": "third", "status": "ON_HOLD", "priority": "LOW", "executorId": 2}
+                """;
+        assertEquals(3, importService.importTasks(stream(body), USER).imported());
+        Task created = taskService.createTask(new TaskReq("Created task", "description",
+                Task.Status.ON_HOLD, Task.Priority.LOW, null), USER);
+
+        List<Long> imported = jdbcTemplate.queryForList("select id from task where title like 'Imported%'", Long.class);
+        assertEquals(3, imported.size());
+        assertFalse(imported.contains(created.getId()));
+        assertEquals(3, ids(taskService.findAllByExecutorId(2L, PAGE)).size());
+        assertEquals(6, taskService.findByCriteria(null, null, null, null, PAGE).size());
+        assertEquals("Imported 1", taskService.findOne(imported.get(0)).getTitle());
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Long> ids(List<TaskResp> page) {
+        return page.stream().map(TaskResp::getId).toList();
+    }
+}
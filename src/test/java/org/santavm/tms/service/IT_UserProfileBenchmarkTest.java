@@ -0,0 +1,91 @@
+package org.santavm.tms.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.Benchmark;
+import org.santavm.tms.model.User;
+import org.santavm.tms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UserResp built from 3 entity graphs versus the profile and activity projections of loadById.
+ * Run with: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class IT_UserProfileBenchmarkTest {
+    private static final int TASKS = 100;
+    private static final int WARMUP = 500;
+    private static final int ITERATIONS = 3_000;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void loadById() throws Exception {
+        // user 2 authors and executes TASKS tasks and comments each of them
+        for (long id = 10; id < 10 + TASKS; id++) {
+            jdbcTemplate.update("insert into task (author_id, executor_id, priority, status, title, created_at, id) " +
+                    "values (2, 2, 'LOW', 'ON_HOLD', ?, current_timestamp, ?)", "Task " + id, id);
+            jdbcTemplate.update("insert into comment (author_id, content, created_at, task_id, id) " +
+                    "values (2, 'content', current_timestamp, ?, ?)", id, id);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Result entities = measure(statistics, () -> transactionTemplate.execute(status -> {
+            repository.findByIdWithTasks(2L).orElseThrow();
+            repository.findOneById(2L).orElseThrow();
+            User user = repository.findOneByIdWithTasks(2L).orElseThrow();
+            return userService.toResponse(user);
+        }));
+        Result projections = measure(statistics, () -> userService.loadById(2L));
+
+        log.info(String.format("%-12s %14s %14s %10s %10s", "", "statements/op", "entities/op", "p50 us", "p99 us"));
+        log.info(String.format("%-12s %14d %14d %10.1f %10.1f", "entities",
+                entities.statementsPerOp, entities.entitiesPerOp, entities.p50 / 1000.0, entities.p99 / 1000.0));
+        log.info(String.format("%-12s %14d %14d %10.1f %10.1f", "projections",
+                projections.statementsPerOp, projections.entitiesPerOp, projections.p50 / 1000.0, projections.p99 / 1000.0));
+
+        assertTrue(projections.statementsPerOp < entities.statementsPerOp);
+        assertTrue(projections.p50 < entities.p50);
+    }
+
+    private Result measure(Statistics statistics, Callable<?> operation) throws Exception {
+        Benchmark.warmUp(WARMUP, operation);
+        statistics.clear();
+        Benchmark.Latencies latencies = Benchmark.time(ITERATIONS, operation);
+        return new Result(statistics.getPrepareStatementCount() / ITERATIONS, statistics.getEntityLoadCount() / ITERATIONS,
+                latencies.p50(), latencies.p99());
+    }
+
+    private record Result(long statementsPerOp, long entitiesPerOp, long p50, long p99) {
+    }
+}
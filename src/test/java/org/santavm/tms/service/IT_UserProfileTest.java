@@ -0,0 +1,81 @@
+package org.santavm.tms.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.dto.UserResp;
+import org.santavm.tms.model.User;
+import org.santavm.tms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class IT_UserProfileTest {
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void profileIsBuiltWithTwoStatementsAndNoEntities() {
+        statistics.clear();
+        UserResp resp = userService.loadById(1L);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of("id: 1, title: The first task", "id: 2, title: The second task"), resp.getAsAuthor());
+        assertEquals(List.of("id: 1, title: The first task"), resp.getAsExecutor());
+        assertEquals(List.of("id: 1, to task: 1"), resp.getComments());
+    }
+
+    @Test
+    void profileMatchesTheEntityGraphPath() {
+        for (Long id : List.of(1L, 2L)) {
+            statistics.clear();
+            UserResp fromEntities = this.loadWithEntities(id);
+            long entityStatements = statistics.getPrepareStatementCount();
+            statistics.clear();
+            UserResp fromProjections = userService.loadById(id);
+
+            assertEquals(fromEntities.toString(), fromProjections.toString());
+            assertEquals(3, entityStatements);
+            assertEquals(2, statistics.getPrepareStatementCount());
+        }
+    }
+
+    // what loadById did before: 3 entity graphs merged in one persistence context
+    UserResp loadWithEntities(Long id) {
+        return transactionTemplate.execute(status -> {
+            repository.findByIdWithTasks(id).orElseThrow();
+            repository.findOneById(id).orElseThrow();
+            User user = repository.findOneByIdWithTasks(id).orElseThrow();
+            return userService.toResponse(user);
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package org.santavm.tms.service;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.cache.CacheInvalidationBus;
+import org.santavm.tms.model.User;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+    private static final String SECRET = "iNa0fyrTACIZxkT2fu9kET4FtF1BJbIviNa0fyrTACIZxkT2fu9kET4FtF1BJbIv";
+
+    private static JwtService jwtService(int verifiedCacheMaxSize) {
+        // neither repository is touched by token verification
+        CacheInvalidationBus invalidationBus = new CacheInvalidationBus(null, 100);
+        return new JwtService(SECRET, verifiedCacheMaxSize, null, new TokenRevocationService(null, 1000, invalidationBus),
+                invalidationBus);
+    }
+
+    private static String token(String email, long expiresInMillis) {
+        return Jwts.builder()
+                .subject(email)
+                .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+
+    @Test
+    void verifiedTokenIsServedFromTheCache() {
+        JwtService jwtService = jwtService(100);
+        User user = User.builder().id(1L).email("adm@site.com").role(User.Role.ADMIN).build();
+        String token = jwtService.generateToken(user);
+
+        assertEquals("adm@site.com", jwtService.extractUserEmail(token));
+        assertEquals("adm@site.com", jwtService.extractUserEmail(token));
+        assertEquals(1L, jwtService.extractPrincipal(token).getId());
+
+        // the signature was checked on the first call only
+        Map<String, Object> stats = jwtService.getVerifiedCacheStats();
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1, stats.get("size"));
+    }
+
+    @Test
+    void expiredTokenIsDroppedAndRejected() throws InterruptedException {
+        JwtService jwtService = jwtService(100);
+        // "exp" has a precision of seconds
+        String token = token("adm@site.com", 1500);
+        assertTrue(jwtService.validateToken(token));
+        assertEquals(1, jwtService.getVerifiedCacheStats().get("size"));
+
+        Thread.sleep(2500);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.extractUserEmail(token));
+        assertFalse(jwtService.validateToken(token));
+        Map<String, Object> stats = jwtService.getVerifiedCacheStats();
+        assertEquals(0, stats.get("size"));
+        assertEquals(0L, stats.get("hits"));
+    }
+
+    @Test
+    void cacheIsKeptWithinItsBound() {
+        JwtService jwtService = jwtService(3);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(jwtService.validateToken(token("user" + i + "@site.com", 60_000)));
+        }
+
+        Map<String, Object> stats = jwtService.getVerifiedCacheStats();
+        assertEquals(3, stats.get("size"));
+        assertEquals(7L, stats.get("evictions"));
+        assertEquals(10L, stats.get("misses"));
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        JwtService jwtService = jwtService(0);
+        String token = token("adm@site.com", 60_000);
+
+        assertTrue(jwtService.validateToken(token));
+        assertTrue(jwtService.validateToken(token));
+
+        assertEquals(0, jwtService.getVerifiedCacheStats().get("size"));
+        assertEquals(2L, jwtService.getVerifiedCacheStats().get("misses"));
+    }
+}
@@ -0,0 +1,39 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.util.TooManyRequestsException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    @Test
+    void attemptsAboveTheLimitAreRejectedPerEmail() {
+        LoginThrottle throttle = new LoginThrottle(3, Duration.ofMinutes(1));
+        throttle.acquire("adm@site.com");
+        throttle.acquire("ADM@site.com");
+        throttle.acquire("adm@site.com");
+
+        // emails differing in case only share their attempts
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("Adm@Site.com"));
+        throttle.acquire("usr@site.com");
+        assertEquals(1L, throttle.getStats().get("throttled"));
+        assertEquals(2, throttle.getStats().get("trackedEmails"));
+    }
+
+    @Test
+    void attemptsLeaveTheWindow() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(2, Duration.ofMillis(200));
+        throttle.acquire("adm@site.com");
+        throttle.acquire("adm@site.com");
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("adm@site.com"));
+
+        Thread.sleep(300);
+
+        throttle.acquire("adm@site.com");
+        throttle.acquire("adm@site.com");
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("adm@site.com"));
+    }
+}
@@ -0,0 +1,81 @@
+package org.santavm.tms.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.cache.CacheInvalidationBus;
+import org.santavm.tms.cache.LoopbackTransport;
+import org.santavm.tms.repository.RevokedTokenRepository;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationServiceTest {
+
+    private CacheInvalidationBus busA;
+    private CacheInvalidationBus busB;
+    private TokenRevocationService nodeA;
+    private TokenRevocationService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        LoopbackTransport transport = new LoopbackTransport();
+        busA = new CacheInvalidationBus(transport, 100);
+        busB = new CacheInvalidationBus(transport, 100);
+        // a mocked repository: the other node must not need the database to see a revocation
+        nodeA = new TokenRevocationService(mock(RevokedTokenRepository.class), 1000, busA);
+        nodeB = new TokenRevocationService(mock(RevokedTokenRepository.class), 1000, busB);
+        // long interval, the tests flush explicitly
+        busA.start(new NoCaches(), Duration.ofHours(1));
+        busB.start(new NoCaches(), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        busA.destroy();
+        busB.destroy();
+    }
+
+    @Test
+    void revocationsReachOtherInstancesWithoutCompaction() {
+        nodeA.revokeToken("digest:with:colons", new Date(System.currentTimeMillis() + 60_000));
+        nodeA.revokeUser(2L);
+        assertTrue(nodeA.isRevoked("digest:with:colons", null));
+        assertFalse(nodeB.isRevoked("digest:with:colons", null));
+
+        busA.flush();
+
+        assertTrue(nodeB.isRevoked("digest:with:colons", null));
+        assertTrue(nodeB.isRevoked("other", 2L));
+        assertFalse(nodeB.isRevoked("other", 1L));
+    }
+
+    @Test
+    void expiredRevocationIsNotApplied() {
+        nodeA.revokeToken("digest", new Date(System.currentTimeMillis() - 1000));
+        busA.flush();
+
+        assertFalse(nodeB.isRevoked("digest", null));
+    }
+
+    private static class NoCaches implements CacheInvalidationBus.Receiver {
+        @Override
+        public void evictLocally(String cacheName, Object key) {
+        }
+
+        @Override
+        public void clearLocally(String cacheName) {
+        }
+
+        @Override
+        public void evictDependentsLocally(String dependency) {
+        }
+
+        @Override
+        public void clearAllLocally() {
+        }
+    }
+}
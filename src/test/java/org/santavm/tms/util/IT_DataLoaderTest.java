@@ -0,0 +1,47 @@
+package org.santavm.tms.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// DataLoader runs at startup against the schema of db/migration, as on a fresh dev or docker database
+@ActiveProfiles(profiles = {"test"})
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:dataloader",
+        "spring.flyway.enabled=true",
+        "spring.jpa.defer-datasource-initialization=false",  // Flyway has to run before Hibernate validates
+        "spring.jpa.hibernate.ddl-auto=validate"})
+class IT_DataLoaderTest {
+
+    @Autowired
+    private DataLoader dataLoader;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sampleDataIsLoadedWithItsActivity() throws Exception {
+        List<Map<String, Object>> tasks = jdbcTemplate.queryForList(
+                "select comment_count, created_at, last_activity_at from task order by id");
+        assertEquals(2, tasks.size());
+        for (Map<String, Object> task : tasks) {
+            // each sample task has one comment
+            assertEquals(1, task.get("COMMENT_COUNT"));
+            assertNotNull(task.get("LAST_ACTIVITY_AT"));
+            assertFalse(((Date) task.get("LAST_ACTIVITY_AT")).before((Date) task.get("CREATED_AT")));
+        }
+
+        // a restart keeps the loaded data
+        dataLoader.run();
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from task", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from comment", Integer.class));
+    }
+}
@@ -0,0 +1,66 @@
+package org.santavm.tms.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.santavm.tms.cache.CacheSnapshot;
+import org.santavm.tms.service.TaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles(profiles = {"test"})
+@Sql(scripts = {"classpath:createTables.sql", "classpath:cacheDependencies.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:dropTablesAndSeq.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@SpringBootTest(properties = {
+        "command.line.runner.enabled=false",  // exclude DataLoader
+        "app.warmup.enabled=true",  // runs once at startup against empty tables, then again in the test
+        "app.warmup.task-ids=1,404",
+        "app.warmup.user-ids=1",
+        "app.warmup.criteria-rounds=1",
+        "app.warmup.connections=2",
+        "app.warmup.snapshot.file=${java.io.tmpdir}/tms-warmup-test-snapshot.txt"})
+class IT_WarmupRunnerTest {
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+    @Autowired
+    private CacheSnapshot snapshot;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void warmupPrimesConfiguredAndSnapshotKeys() {
+        // task 2 was hot before the "restart"
+        taskService.findOne(2L);
+        snapshot.write();
+        assertEquals(Map.of("tasks", List.of(2L)), snapshot.read());
+        clearCaches();
+
+        warmupRunner.run();
+
+        Map<String, Object> report = warmupRunner.getReport();
+        assertEquals("DONE", report.get("state"));
+        assertEquals(2, report.get("connectionsOpened"));
+        assertEquals(1, report.get("snapshotKeys"));
+        assertEquals(2, report.get("primedTasks"));  // 404 does not exist
+        assertEquals(1, report.get("primedUsers"));
+        assertEquals(10, report.get("criteriaQueries"));
+        assertNotNull(cacheManager.getCache("tasks").get(1L));
+        assertNotNull(cacheManager.getCache("tasks").get(2L));
+        assertNotNull(cacheManager.getCache("user_resp").get(1L));
+    }
+}
@@ -0,0 +1,121 @@
+package org.santavm.tms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static List<Long> ids(SearchIndex.Result result) {
+        return result.hits().stream().map(SearchIndex.Hit::id).toList();
+    }
+
+    @Test
+    void wordsAreLowerCasedAndStopWordsLeftOut() {
+        assertEquals(List.of("fix", "login", "page", "ios17"), SearchIndex.tokenize("Fix the LOGIN-page on iOS17!"));
+        assertEquals(List.of(), SearchIndex.tokenize("a, I, to"));
+        assertEquals(List.of(), SearchIndex.tokenize(null));
+    }
+
+    @Test
+    void rarerTermsAndTitlesRankHigher() {
+        SearchIndex index = new SearchIndex();
+        index.putTask(1, 1, "Login page", "Users can not log in");
+        index.putTask(2, 1, "Report page", "The login button is grey");
+        index.putTask(3, 1, "Report export", "Export the monthly page report");
+        index.putComment(10, 3, 2, "Export to csv please");
+
+        // the title counts more than the description
+        assertEquals(List.of(1L, 2L), ids(index.search("login", null, 0, 10)));
+        // "export" is rarer than "page", task 3 has both
+        assertEquals(3L, ids(index.search("export page", SearchIndex.Kind.TASK, 0, 10)).get(0));
+        assertEquals(3, index.search("export page", SearchIndex.Kind.TASK, 0, 10).total());
+
+        SearchIndex.Result comments = index.search("csv", SearchIndex.Kind.COMMENT, 0, 10);
+        assertEquals(List.of(10L), ids(comments));
+        assertEquals(3L, comments.hits().get(0).taskId());
+        assertTrue(index.search("csv", SearchIndex.Kind.TASK, 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void pagesFollowTheRanking() {
+        SearchIndex index = new SearchIndex();
+        for (long id = 1; id <= 25; id++) {
+            index.putTask(id, 1, "Same title", "same words");
+        }
+        // equal scores, newer documents first
+        SearchIndex.Result first = index.search("words", null, 0, 10);
+        SearchIndex.Result third = index.search("words", null, 20, 10);
+        assertEquals(25, first.total());
+        assertEquals(25L, first.hits().get(0).id());
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), ids(third));
+        assertTrue(index.search("words", null, 30, 10).hits().isEmpty());
+    }
+
+    @Test
+    void updatesReplaceAndRemovesDropDocuments() {
+        SearchIndex index = new SearchIndex();
+        index.putTask(1, 1, "Old title", "description");
+        index.putTask(2, 2, "Other task", "description");
+        index.putComment(10, 1, 2, "comment on the first");
+        index.putComment(11, 2, 2, "comment on the second");
+        index.putComment(12, 2, 1, "admin comment on the second");
+
+        index.putTask(1, 1, "New title", "description");
+        assertTrue(index.search("old", null, 0, 10).hits().isEmpty());
+        assertEquals("New title", index.search("new", null, 0, 10).hits().get(0).label());
+
+        index.removeTask(1);
+        assertEquals(List.of(11L, 12L), ids(index.search("comment", null, 0, 10)).stream().sorted().toList());
+
+        // user 2 authored task 2, its comments go too
+        index.removeAuthor(2, List.of(2L));
+        assertEquals(0, index.search("comment description", null, 0, 10).total());
+        assertEquals(0, index.getStats().get("tasks"));
+        assertEquals(0, index.getStats().get("comments"));
+    }
+
+    @Test
+    void ordinalsOfRemovedDocumentsAreCompacted() {
+        SearchIndex index = new SearchIndex();
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1; id <= 1000; id++) {
+                index.putTask(id, 1, "Task " + id + " round " + round, "description");
+            }
+        }
+        assertEquals(1000, index.getStats().get("tasks"));
+        assertTrue((int) index.getStats().get("ordinals") < 2100, index.getStats().toString());
+        assertEquals(1000, index.search("round", null, 0, 10).total());
+        assertEquals(List.of(77L), ids(index.search("77", null, 0, 10)));
+        assertEquals("Task 77 round 4", index.search("77", null, 0, 10).hits().get(0).label());
+    }
+
+    @Test
+    void removalsFindTheirDocumentsAfterCompaction() {
+        SearchIndex index = new SearchIndex();
+        for (long id = 1; id <= 1000; id++) {
+            index.putTask(id, id % 2 + 1, "Task " + id, "description");
+            index.putComment(10_000 + id, id, 3, "comment " + id);
+        }
+        // updates leave enough dead ordinals to renumber the live ones
+        for (long id = 1; id <= 1000; id++) {
+            index.putComment(10_000 + id, id, 3, "comment " + id + " edited");
+        }
+        for (long id = 1; id <= 1000; id++) {
+            index.putComment(10_000 + id, id, 3, "comment " + id + " edited twice");
+        }
+        assertTrue((int) index.getStats().get("ordinals") < 3000, index.getStats().toString());
+
+        index.removeTask(8);
+        assertEquals(0, index.search("8", null, 0, 10).total());
+        // without the task ids, as received from another node: the tasks indexed as user 2's and their comments
+        index.removeAuthor(2, List.of());
+        assertEquals(499, index.search("task", null, 0, 10).total());
+        assertEquals(499, index.search("comment", null, 0, 10).total());
+        index.removeAuthor(3, List.of());
+        assertEquals(0, index.search("comment", null, 0, 10).total());
+        assertEquals(499, index.getStats().get("tasks"));
+    }
+}
@@ -0,0 +1,22 @@
+-- user 2 executes task 2 and comments task 1, applied after createTables.sql
+
+insert into user_table
+(email, first_name, last_name, password, role, id)
+values
+    ('usr@site.com', 'User', 'User', '$2a$10$.sGf.fZ2GVXmYIU35E5wSOMRbPj2A1i.nBeJF2De9OHj6hv8DSo2O', 'USER', 2);
+
+insert into task
+(author_id, created_at, description, executor_id, priority, status, title, updated_at, id)
+values
+    (1, CURRENT_TIMESTAMP, 'Second description', 2, 'LOW', 'ON_HOLD', 'The second task', current_timestamp, 2);
+
+insert into comment
+(author_id, content, created_at, task_id, id)
+values
+    (2, 'user content', current_timestamp, 1, 2);
+
+update task set comment_count = comment_count + 1 where id = 1;
+
+ALTER SEQUENCE task_seq RESTART WITH 3;
+ALTER SEQUENCE user_table_seq RESTART WITH 3;
+ALTER SEQUENCE comment_seq RESTART WITH 3;
@@ -10,6 +10,7 @@ CREATE TABLE if not exists user_table
     email     VARCHAR(255),
     password  VARCHAR(255),
     role      VARCHAR(255) check (role in ('USER','ADMIN')),
+    token_version INT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_user_table PRIMARY KEY (id)
 );
 
@@ -35,9 +36,19 @@ CREATE TABLE if not exists task
     executor_id BIGINT,
     created_at   TIMESTAMP,
     updated_at   TIMESTAMP,
+    comment_count INT DEFAULT 0 NOT NULL,
+    last_activity_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     CONSTRAINT pk_task PRIMARY KEY (id)
 );
 
+CREATE TABLE if not exists revoked_token
+(
+    token_key  VARCHAR(64) NOT NULL,
+    expires_at TIMESTAMP   NOT NULL,
+    revoked_at TIMESTAMP,
+    CONSTRAINT pk_revoked_token PRIMARY KEY (token_key)
+);
+
 ALTER TABLE user_table
     ADD CONSTRAINT uc_user_table_email UNIQUE (email);
 
@@ -63,9 +74,9 @@ values
     ('adm@site.com', 'Admin', 'Admin', '$2a$10$.sGf.fZ2GVXmYIU35E5wSOMRbPj2A1i.nBeJF2De9OHj6hv8DSo2O', 'ADMIN', 1);
 
 insert into task
-(author_id, created_at, description, executor_id, priority, status, title, updated_at, id)
+(author_id, created_at, description, executor_id, priority, status, title, updated_at, comment_count, id)
 values
-    (1, CURRENT_TIMESTAMP, 'First description', 1, 'HIGH', 'COMPLETED', 'The first task', current_timestamp, 1);
+    (1, CURRENT_TIMESTAMP, 'First description', 1, 'HIGH', 'COMPLETED', 'The first task', current_timestamp, 1, 1);
 
 insert into comment
 (author_id, content, created_at, task_id, id)
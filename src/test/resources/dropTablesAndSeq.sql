@@ -4,6 +4,8 @@ drop table if exists task cascade;
 
 drop table if exists user_table cascade;
 
+drop table if exists revoked_token cascade;
+
 drop sequence if exists comment_seq;
 
 drop sequence if exists task_seq;